@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DelayQueueScheduledExecutor 和 VirtualThreadScheduledExecutor 共用的部分：任务队列、提交和关闭
+ *
+ * 子类的线程用 takeTask 从队列中取出到期的任务，决定怎样执行（自己执行或者交给新线程），
+ * 在 onShutdown 和 onShutdownNow 中唤醒或中断自己的线程，并负责 isTerminated 和 awaitTermination。
+ *
+ * 取消的任务不会从队列中删除（DelayQueue 等队列的 remove 都是 O(n)），到期时被 takeTask 跳过，
+ * 和 ScheduledThreadPoolExecutor 默认的 removeOnCancelPolicy = false 相同。
+ * 周期任务执行完之后才计算下一次的时间放回队列，同一个周期任务不会并发执行，抛出异常之后不再执行。
+ * shutdown 之后不再接受新任务，周期任务被取消，取消的任务从队列中删除，已经提交的一次性任务仍然会执行，
+ * 队列中没有未取消的任务时 takeTask 返回 null；shutdownNow 清空队列，takeTask 立即返回 null。
+ */
+abstract class AbstractDelayQueueScheduledExecutor extends AbstractExecutorService
+        implements ScheduledExecutorService {
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+
+    private final BlockingQueue<RunnableScheduledFuture<?>> queue;
+    private volatile int state = RUNNING;
+
+    protected AbstractDelayQueueScheduledExecutor(BlockingQueue<RunnableScheduledFuture<?>> queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * 取出下一个到期并且没有取消的任务，线程应该退出时返回 null。
+     * 中断只用来唤醒等待中的线程回到循环检查状态，不会让这个方法返回
+     */
+    protected final RunnableScheduledFuture<?> takeTask() {
+        while (true) {
+            RunnableScheduledFuture<?> task;
+            try {
+                if (state == RUNNING) {
+                    task = queue.take();
+                } else if (state == SHUTDOWN) {
+                    task = queue.poll(10, TimeUnit.MILLISECONDS);
+                    if (task == null && !hasRunnableTasks()) {
+                        return null;
+                    }
+                } else {
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (task != null && !task.isCancelled()) {
+                return task;
+            }
+        }
+    }
+
+    /**
+     * shutdownNow 之后返回 true，这时要让正在执行的任务看到中断
+     */
+    protected final boolean isStopped() {
+        return state == STOP;
+    }
+
+    // 删除已经取消的任务，返回队列中是否还有要执行的任务
+    private boolean hasRunnableTasks() {
+        queue.removeIf(Future::isCancelled);
+        return !queue.isEmpty();
+    }
+
+    protected <V> RunnableScheduledFuture<V> enqueue(RunnableScheduledFuture<V> task) {
+        if (state != RUNNING) {
+            throw new RejectedExecutionException("executor has been shut down");
+        }
+        queue.add(task);
+        // 和 shutdown 并发时，shutdown 可能没有看到这个周期任务，在这里取消
+        if (state != RUNNING && task.isPeriodic() && queue.remove(task)) {
+            task.cancel(false);
+        }
+        return task;
+    }
+
+    /**
+     * 周期任务执行完之后放回队列，已经 shutdown 时返回 false
+     */
+    private boolean requeue(RunnableScheduledFuture<?> task) {
+        if (state != RUNNING) {
+            return false;
+        }
+        queue.add(task);
+        // 和 shutdown 并发时，shutdown 可能没有看到刚放回的任务
+        return state == RUNNING || !queue.remove(task);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new ScheduledTask<Void>(command, null, ScheduledTask.triggerTime(delay, unit)));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new ScheduledTask<>(callable, ScheduledTask.triggerTime(delay, unit)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return enqueue(new ScheduledTask<Void>(command, null, ScheduledTask.triggerTime(initialDelay, unit),
+                unit.toNanos(period), this::requeue));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return enqueue(new ScheduledTask<Void>(command, null, ScheduledTask.triggerTime(initialDelay, unit),
+                -unit.toNanos(delay), this::requeue));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        if (state != RUNNING) {
+            return;
+        }
+        state = SHUTDOWN;
+        for (RunnableScheduledFuture<?> task : queue) {
+            if (task.isPeriodic()) {
+                task.cancel(false);
+            }
+        }
+        // 和 ScheduledThreadPoolExecutor.onShutdown 一样删除取消的任务，否则 takeTask 要等到它们到期才能返回 null
+        queue.removeIf(Future::isCancelled);
+        onShutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        state = STOP;
+        List<Runnable> remaining = new ArrayList<>(queue);
+        queue.clear();
+        onShutdownNow();
+        return remaining;
+    }
+
+    /**
+     * shutdown 之后调用，唤醒在 takeTask 中等待的线程，不应该中断正在执行的任务
+     */
+    protected abstract void onShutdown();
+
+    /**
+     * shutdownNow 之后调用，唤醒等待的线程并中断正在执行的任务
+     */
+    protected abstract void onShutdownNow();
+
+    @Override
+    public boolean isShutdown() {
+        return state != RUNNING;
+    }
+}
@@ -0,0 +1,101 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 比较逐个 schedule 和批量提交 scheduleAll 的开销
+ *
+ * 运行方式：
+ *   javac ScheduledTask.java AbstractDelayQueueScheduledExecutor.java DelayQueueScheduledExecutor.java
+ *         ConcurrentDelayQueue.java ShardedDelayQueue.java BatchScheduleBenchmark.java
+ *   java [-Dbench.deadlines=100] [-Dbench.rounds=5] BatchScheduleBenchmark [任务数]
+ * 默认提交 100000 个任务，到期时间只有 deadlines 种（10 秒之后，间隔 10 毫秒），测试期间不会执行。
+ * 每种方式输出最后一轮的结果：
+ *   ns/task：提交每个任务的时间
+ *   bytes/task：提交线程每个任务分配的字节数（ThreadMXBean.getThreadAllocatedBytes，不包括事先创建的 Runnable）
+ *   queue locks：入队的次数，DelayQueue 每次 offer 加一次锁。ScheduledThreadPoolExecutor 的队列不能替换，不统计
+ *   futures：返回的 future 个数
+ * 单核机器上 -Dbench.rounds=30 运行 5 次的结果（波动比较大）：delayQueue.schedule 124~158 ns/task、106 bytes/task，
+ * delayQueue.scheduleAll 9~84 ns/task、8 bytes/task，入队 100 次。scheduleAll 用哈希表一遍完成分组，
+ * 只对不同的延迟排序，之前对所有延迟排序再逐个二分查找时是 57~123 ns/task、16 bytes/task。
+ */
+public class BatchScheduleBenchmark {
+
+    static final int DEADLINES = Integer.getInteger("bench.deadlines", 100);
+    static final int ROUNDS = Integer.getInteger("bench.rounds", 5);
+
+    /**
+     * 记录入队次数的 DelayQueue，add 和 put 都会调用 offer
+     */
+    static class CountingDelayQueue extends DelayQueue<RunnableScheduledFuture<?>> {
+        final LongAdder offers = new LongAdder();
+
+        @Override
+        public boolean offer(RunnableScheduledFuture<?> e) {
+            offers.increment();
+            return super.offer(e);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        List<Runnable> commands = new ArrayList<>(n);
+        long[] delays = new long[n];
+        for (int i = 0; i < n; i++) {
+            commands.add(new Noop());
+            delays[i] = 10_000 + (i % DEADLINES) * 10L;
+        }
+        System.out.printf("tasks=%d deadlines=%d%n", n, DEADLINES);
+        System.out.printf("%-28s %12s %12s %12s %12s%n", "Mode", "ns/task", "bytes/task", "queue locks", "futures");
+        for (String mode : new String[]{"scheduledThreadPool.schedule", "delayQueue.schedule",
+                "delayQueue.scheduleAll"}) {
+            for (int round = 0; round < ROUNDS; round++) {
+                CountingDelayQueue queue = new CountingDelayQueue();
+                ScheduledExecutorService executor = mode.startsWith("scheduledThreadPool")
+                        ? new ScheduledThreadPoolExecutor(1) : new DelayQueueScheduledExecutor(1, queue);
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                int futures = submit(executor, mode, commands, delays);
+                long nanos = System.nanoTime() - start;
+                bytes = allocatedBytes() - bytes;
+                executor.shutdownNow();
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+                if (round == ROUNDS - 1) {
+                    String locks = executor instanceof DelayQueueScheduledExecutor
+                            ? String.valueOf(queue.offers.sum()) : "-";
+                    System.out.printf("%-28s %12.1f %12.1f %12s %12d%n", mode, (double) nanos / n,
+                            (double) bytes / n, locks, futures);
+                }
+            }
+        }
+    }
+
+    private static int submit(ScheduledExecutorService executor, String mode, List<Runnable> commands,
+                              long[] delays) {
+        if (mode.endsWith("scheduleAll")) {
+            return ((DelayQueueScheduledExecutor) executor).scheduleAll(commands, delays, TimeUnit.MILLISECONDS)
+                    .size();
+        }
+        for (int i = 0; i < delays.length; i++) {
+            executor.schedule(commands.get(i), delays[i], TimeUnit.MILLISECONDS);
+        }
+        return delays.length;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static class Noop implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * ExampleReentrantLock 的客户端模拟，比较线程池（newCachedThreadPool）和每个客户端一个虚拟线程两种方式
+ *
+ * 运行方式：
+ *   javac ExampleReentrantLock.java Counter.java VirtualThreads.java ClientSimulation.java
+ *   java [-Dclient.sleep=毫秒] ClientSimulation [cached|virtual] [pinned] [clientTotal...]
+ * 默认两种方式都测，clientTotal 依次为 5000、50000、200000、1000000，并发数为 ExampleReentrantLock.threadTotal。
+ * 每个客户端拿到许可后用 ReentrantLock 自增计数，再 sleep client.sleep 毫秒（默认 0，模拟 I/O）。
+ *
+ * 输出：提交全部客户端的时间（线程池需要在这期间创建线程）、总时间、每秒完成的客户端数、
+ * 平台线程数的峰值、进程 RSS 的峰值（每 5ms 读一次 /proc/self/status），
+ * 虚拟线程方式还会用 JFR 统计 jdk.VirtualThreadPinned 事件的个数。
+ *
+ * ReentrantLock 和 Semaphore 阻塞时通过 LockSupport.park 挂起，虚拟线程会从载体线程上卸载，不会被钉住；
+ * 加上 pinned 参数时 sleep 放在一个 synchronized 块中，JDK 21 ~ 23 上持有监视器时阻塞会钉住载体线程，
+ * 可以看到 pinned 事件。也可以加 -Djdk.tracePinnedThreads=full 打印钉住时的栈。
+ * 虚拟线程需要 JDK 21+，在更早的 JDK 上只测试线程池。
+ */
+public class ClientSimulation {
+
+    static final int[] DEFAULT_CLIENTS = {5_000, 50_000, 200_000, 1_000_000};
+    static final long SLEEP_MILLIS = Long.getLong("client.sleep", 0);
+
+    static class Result {
+        long submitNanos;
+        long totalNanos;
+        int peakThreads;
+        long peakRssKb;
+        long pinned = -1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = new ArrayList<>();
+        boolean pinned = false;
+        List<Integer> clients = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.matches("\\d+")) {
+                clients.add(Integer.parseInt(arg));
+            } else if (arg.equals("pinned")) {
+                pinned = true;
+            } else {
+                modes.add(arg);
+            }
+        }
+        if (modes.isEmpty()) {
+            modes.add("cached");
+            modes.add("virtual");
+        }
+        if (clients.isEmpty()) {
+            for (int n : DEFAULT_CLIENTS) {
+                clients.add(n);
+            }
+        }
+        if (modes.contains("virtual") && !VirtualThreads.isSupported()) {
+            System.out.println("JDK " + System.getProperty("java.version") + " 不支持虚拟线程，跳过 virtual");
+            modes.remove("virtual");
+        }
+        System.out.printf("threadTotal=%d sleep=%dms pinned=%b%n", ExampleReentrantLock.threadTotal, SLEEP_MILLIS,
+                pinned);
+        System.out.printf("%-8s %10s %12s %12s %14s %12s %12s %8s%n", "mode", "clients", "submit(ms)", "total(ms)",
+                "clients/s", "peakThreads", "peakRSS(MB)", "pinned");
+        for (String mode : modes) {
+            // 预热
+            run(mode, 5_000, pinned);
+            for (int n : clients) {
+                System.gc();
+                try {
+                    Result r = run(mode, n, pinned);
+                    System.out.printf("%-8s %10d %12.1f %12.1f %14.0f %12d %12s %8s%n", mode, n, r.submitNanos / 1e6,
+                            r.totalNanos / 1e6, n * 1e9 / r.totalNanos, r.peakThreads,
+                            r.peakRssKb < 0 ? "-" : String.format("%.1f", r.peakRssKb / 1024.0),
+                            r.pinned < 0 ? "-" : String.valueOf(r.pinned));
+                } catch (OutOfMemoryError e) {
+                    // 平台线程太多时创建线程失败
+                    System.out.printf("%-8s %10d %s%n", mode, n, e);
+                }
+            }
+        }
+    }
+
+    static ExecutorService newExecutor(String mode) {
+        switch (mode) {
+            case "cached":
+                return Executors.newCachedThreadPool();
+            case "virtual":
+                return VirtualThreads.newVirtualThreadPerTaskExecutor();
+            default:
+                throw new IllegalArgumentException("unknown mode: " + mode);
+        }
+    }
+
+    static Result run(String mode, int clientTotal, boolean pinned) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        RssSampler rss = new RssSampler();
+        rss.start();
+        Recording recording = null;
+        if (mode.equals("virtual")) {
+            recording = new Recording();
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.start();
+        }
+        Counter counter = new Counter.LockCounter();
+        Result r = new Result();
+        ExecutorService executorService = newExecutor(mode);
+        final Semaphore semaphore = new Semaphore(ExampleReentrantLock.threadTotal);
+        final CountDownLatch countDownLatch = new CountDownLatch(clientTotal);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < clientTotal; i++) {
+                executorService.execute(() -> {
+                    try {
+                        semaphore.acquire();
+                        try {
+                            counter.increment();
+                            work(pinned);
+                        } finally {
+                            semaphore.release();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    countDownLatch.countDown();
+                });
+            }
+            r.submitNanos = System.nanoTime() - start;
+            countDownLatch.await();
+            r.totalNanos = System.nanoTime() - start;
+        } finally {
+            executorService.shutdownNow();
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+            rss.interrupt();
+            rss.join();
+        }
+        if (counter.get() != clientTotal) {
+            throw new IllegalStateException("count: " + counter.get() + ", expected: " + clientTotal);
+        }
+        r.peakThreads = threads.getPeakThreadCount();
+        r.peakRssKb = rss.peakKb;
+        if (recording != null) {
+            r.pinned = countPinned(recording);
+        }
+        return r;
+    }
+
+    private static void work(boolean pinned) throws InterruptedException {
+        if (pinned) {
+            Object monitor = new Object();
+            synchronized (monitor) {
+                Thread.sleep(Math.max(1, SLEEP_MILLIS));
+            }
+        } else if (SLEEP_MILLIS > 0) {
+            Thread.sleep(SLEEP_MILLIS);
+        }
+    }
+
+    private static long countPinned(Recording recording) throws IOException {
+        recording.stop();
+        Path file = Files.createTempFile("pinned", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                    .count();
+        } finally {
+            recording.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 定期读取 /proc/self/status 中的 VmRSS，记录最大值，读取失败时 peakKb 为 -1
+     */
+    static class RssSampler extends Thread {
+        volatile long peakKb = -1;
+
+        RssSampler() {
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            Path status = Path.of("/proc/self/status");
+            long peak = -1;
+            while (true) {
+                try {
+                    for (String line : Files.readAllLines(status)) {
+                        if (line.startsWith("VmRSS:")) {
+                            peak = Math.max(peak, Long.parseLong(line.replaceAll("\\D", "")));
+                        }
+                    }
+                    peakKb = peak;
+                    Thread.sleep(5);
+                } catch (IOException | InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 无锁的延迟队列，可以代替 DelayQueue
+ *
+ * DelayQueue 和 ScheduledThreadPoolExecutor 内部的 DelayedWorkQueue 都是一个堆加一把 ReentrantLock，
+ * 每次入队出队都要加锁，很多线程同时提交任务时都在这把锁上排队。
+ * 这里用 ConcurrentSkipListSet 按到期时间排序，入队和出队都是 CAS，不需要加锁。
+ *
+ * 只有消费者需要等待的时候才用到锁：队列为空或者队首还没到期时，消费者加锁后再检查一次队首，然后在条件上等待；
+ * 生产者只有在新元素成为队首时才加锁唤醒消费者。到期时间随机的任务很少成为队首，所以生产者基本不会加锁。
+ * 元素按 compareTo 排序，相等的元素再按入队顺序排序，所以 compareTo 相等的不同元素也可以同时在队列中。
+ *
+ * 代价是跳表的每次插入都要沿着多层索引查找并分配节点，元素很多时缓存不命中比数组实现的堆多得多，
+ * 没有竞争时比 DelayQueue 慢一个数量级。竞争不严重时用 ShardedDelayQueue 更合适。
+ */
+public class ConcurrentDelayQueue<E extends Delayed> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private final ConcurrentSkipListSet<Node<E>> nodes = new ConcurrentSkipListSet<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // 正在等待的消费者个数
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    static final class Node<E extends Delayed> implements Comparable<Node<E>> {
+        final E element;
+        final long seq;
+
+        Node(E element, long seq) {
+            this.element = element;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(Node<E> other) {
+            if (this == other) {
+                return 0;
+            }
+            int c = element.compareTo(other.element);
+            return c != 0 ? c : Long.compare(seq, other.seq);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        Node<E> node = new Node<>(e, sequence.getAndIncrement());
+        nodes.add(node);
+        if (firstOrNull() == node) {
+            signal();
+        }
+        return true;
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    @Override
+    public E poll() {
+        while (true) {
+            Node<E> first = firstOrNull();
+            if (first == null || first.element.getDelay(TimeUnit.NANOSECONDS) > 0) {
+                return null;
+            }
+            if (nodes.remove(first)) {
+                afterRemove();
+                return first.element;
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        while (true) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            await(Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            await(remaining);
+        }
+    }
+
+    /**
+     * 等待到队首到期、有新的队首或者超时。加锁之后再检查一次队首，
+     * 在这之后成为队首的元素一定会在我们等待之后才加锁唤醒，所以不会丢失唤醒
+     */
+    private void await(long maxNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        waiters.incrementAndGet();
+        try {
+            Node<E> first = firstOrNull();
+            long nanos = first == null ? maxNanos : Math.min(maxNanos, first.element.getDelay(TimeUnit.NANOSECONDS));
+            if (nanos > 0) {
+                available.awaitNanos(nanos);
+            }
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    // 取走一个元素之后，如果还有元素，唤醒另一个消费者等待新的队首
+    private void afterRemove() {
+        if (waiters.get() > 0 && !nodes.isEmpty()) {
+            signal();
+        }
+    }
+
+    private Node<E> firstOrNull() {
+        try {
+            return nodes.first();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public E peek() {
+        Node<E> first = firstOrNull();
+        return first == null ? null : first.element;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * O(n)，需要遍历整个队列
+     */
+    @Override
+    public boolean remove(Object o) {
+        for (Node<E> node : nodes) {
+            if (node.element.equals(o)) {
+                return nodes.remove(node);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+    }
+
+    /**
+     * 只取出已经到期的元素，和 DelayQueue 相同
+     */
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 按到期时间的顺序遍历，弱一致性
+     */
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<Node<E>> it = nodes.iterator();
+        return new Iterator<E>() {
+            Node<E> last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                last = it.next();
+                return last.element;
+            }
+
+            @Override
+            public void remove() {
+                nodes.remove(last);
+            }
+        };
+    }
+}
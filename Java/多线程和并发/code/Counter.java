@@ -0,0 +1,148 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ExampleReentrantLock 中的计数器，抽象出来以便比较不同的同步方式
+ *
+ * @see CounterBenchmark
+ */
+public interface Counter {
+
+    void increment();
+
+    long get();
+
+    /**
+     * 把当前线程缓存的计数写回，只有 BatchedCounter 需要。
+     * 每个线程在结束前调用一次，之后 get() 才是准确的值。
+     */
+    default void flush() {
+    }
+
+    /**
+     * 和 ExampleReentrantLock.add 相同，用一个 ReentrantLock 保护 count++
+     */
+    class LockCounter implements Counter {
+        private final Lock lock;
+        private long count;
+
+        public LockCounter() {
+            this(new ReentrantLock());
+        }
+
+        public LockCounter(Lock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public void increment() {
+            lock.lock();
+            try {
+                count++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public long get() {
+            lock.lock();
+            try {
+                return count;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    class SynchronizedCounter implements Counter {
+        private long count;
+
+        @Override
+        public synchronized void increment() {
+            count++;
+        }
+
+        @Override
+        public synchronized long get() {
+            return count;
+        }
+    }
+
+    /**
+     * CAS，竞争激烈时失败重试的次数会变多
+     */
+    class AtomicCounter implements Counter {
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void increment() {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public long get() {
+            return count.get();
+        }
+    }
+
+    /**
+     * LongAdder 在竞争时把计数分散到多个 Cell 上，读取时再求和
+     */
+    class LongAdderCounter implements Counter {
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void increment() {
+            count.increment();
+        }
+
+        @Override
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * 每个线程先在本地累加，满 batch 次再加到共享的计数上，共享变量的写入减少为原来的 1/batch。
+     * 代价是 get() 可能少算每个线程还没写回的部分，需要各线程调用 flush() 之后才准确。
+     */
+    class BatchedCounter implements Counter {
+        private final AtomicLong count = new AtomicLong();
+        private final ThreadLocal<long[]> local = ThreadLocal.withInitial(() -> new long[1]);
+        private final int batch;
+
+        public BatchedCounter() {
+            this(64);
+        }
+
+        public BatchedCounter(int batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void increment() {
+            long[] pending = local.get();
+            if (++pending[0] == batch) {
+                count.addAndGet(batch);
+                pending[0] = 0;
+            }
+        }
+
+        @Override
+        public void flush() {
+            long[] pending = local.get();
+            if (pending[0] != 0) {
+                count.addAndGet(pending[0]);
+                pending[0] = 0;
+            }
+        }
+
+        @Override
+        public long get() {
+            return count.get();
+        }
+    }
+}
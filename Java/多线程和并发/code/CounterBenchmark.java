@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 用 ExampleReentrantLock 的方式比较不同 Counter 的性能：clientTotal 个客户端提交到线程池，
+ * 用 Semaphore 限制最多 threadTotal 个同时执行，每个客户端对计数器自增 opsPerClient 次。
+ *
+ * 运行方式：
+ *   javac ExampleReentrantLock.java Counter.java CounterBenchmark.java LatencyHistogram.java InstrumentedLock.java
+ *   java CounterBenchmark [名称过滤] [clientTotal] [threadTotal] [opsPerClient]
+ * 默认使用 ExampleReentrantLock 中的 clientTotal 和 threadTotal，每个客户端自增 100 次。
+ *
+ * 每种计数器先跑一轮预热，再跑 bench.rounds 轮（默认 5）。输出吞吐量（每秒自增次数），
+ * 以及每个客户端拿到许可之后完成全部自增所用时间的分位数，每轮结束后检查计数是否正确。
+ */
+public class CounterBenchmark {
+
+    static final int ROUNDS = Integer.getInteger("bench.rounds", 5);
+
+    static class Case {
+        final String name;
+        final Supplier<Counter> counter;
+
+        Case(String name, Supplier<Counter> counter) {
+            this.name = name;
+            this.counter = counter;
+        }
+    }
+
+    static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("reentrantLock", Counter.LockCounter::new));
+        cases.add(new Case("reentrantLock.fair", () -> new Counter.LockCounter(new ReentrantLock(true))));
+        // 带统计的锁，和 reentrantLock 比较可以看出统计本身的开销
+        cases.add(new Case("reentrantLock.instrumented", () -> new Counter.LockCounter(new InstrumentedLock("counter"))));
+        cases.add(new Case("synchronized", Counter.SynchronizedCounter::new));
+        cases.add(new Case("atomicLong", Counter.AtomicCounter::new));
+        cases.add(new Case("longAdder", Counter.LongAdderCounter::new));
+        cases.add(new Case("batched", Counter.BatchedCounter::new));
+        return cases;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String filter = null;
+        List<Integer> numbers = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.matches("\\d+")) {
+                numbers.add(Integer.parseInt(arg));
+            } else {
+                filter = arg;
+            }
+        }
+        int clientTotal = numbers.size() > 0 ? numbers.get(0) : ExampleReentrantLock.clientTotal;
+        int threadTotal = numbers.size() > 1 ? numbers.get(1) : ExampleReentrantLock.threadTotal;
+        int opsPerClient = numbers.size() > 2 ? numbers.get(2) : 100;
+        System.out.printf("clientTotal=%d threadTotal=%d opsPerClient=%d rounds=%d%n", clientTotal, threadTotal,
+                opsPerClient, ROUNDS);
+        System.out.printf("%-28s %14s %10s %12s %12s %12s %12s%n", "Counter", "ops/s", "ns/op", "p50(us)",
+                "p99(us)", "p99.9(us)", "max(us)");
+        for (Case c : cases()) {
+            if (filter != null && !c.name.contains(filter)) {
+                continue;
+            }
+            run(c.counter.get(), clientTotal, threadTotal, opsPerClient, new LatencyHistogram());
+            LatencyHistogram latency = new LatencyHistogram();
+            long nanos = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                nanos += run(c.counter.get(), clientTotal, threadTotal, opsPerClient, latency);
+            }
+            double ops = (double) clientTotal * opsPerClient * ROUNDS;
+            System.out.printf("%-28s %14.0f %10.2f %12.1f %12.1f %12.1f %12.1f%n", c.name, ops * 1e9 / nanos,
+                    nanos / ops, latency.percentile(50) / 1000.0, latency.percentile(99) / 1000.0,
+                    latency.percentile(99.9) / 1000.0, latency.max() / 1000.0);
+        }
+    }
+
+    /**
+     * 跑一轮，返回从提交第一个客户端到全部完成的时间
+     */
+    static long run(Counter counter, int clientTotal, int threadTotal, int opsPerClient, LatencyHistogram latency)
+            throws InterruptedException {
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        final Semaphore semaphore = new Semaphore(threadTotal);
+        final CountDownLatch countDownLatch = new CountDownLatch(clientTotal);
+        long start = System.nanoTime();
+        for (int i = 0; i < clientTotal; i++) {
+            executorService.execute(() -> {
+                try {
+                    semaphore.acquire();
+                    long begin = System.nanoTime();
+                    for (int j = 0; j < opsPerClient; j++) {
+                        counter.increment();
+                    }
+                    counter.flush();
+                    latency.record(System.nanoTime() - begin);
+                    semaphore.release();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                countDownLatch.countDown();
+            });
+        }
+        countDownLatch.await();
+        long nanos = System.nanoTime() - start;
+        executorService.shutdown();
+        long expected = (long) clientTotal * opsPerClient;
+        if (counter.get() != expected) {
+            throw new IllegalStateException("count: " + counter.get() + ", expected: " + expected);
+        }
+        return nanos;
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 多个生产者同时提交定时任务时，比较 ScheduledThreadPoolExecutor 和三种队列的 DelayQueueScheduledExecutor
+ *
+ * 运行方式：
+ *   javac LatencyHistogram.java ConcurrentDelayQueue.java ShardedDelayQueue.java ScheduledTask.java
+ *         AbstractDelayQueueScheduledExecutor.java DelayQueueScheduledExecutor.java DelayQueueBenchmark.java
+ *   java [-Dbench.producers=64] [-Dbench.threads=CPU 核数] DelayQueueBenchmark [名称过滤] [任务数]
+ * 默认 64 个生产者线程一共提交 640000 个任务，测两项：
+ *   schedule：任务的延迟为 10 ~ 20 秒，测试期间不会执行，只测提交的吞吐量
+ *   fire：任务的延迟为 0 ~ 100 毫秒，测从开始提交到全部执行完的时间，以及执行时间比到期时间晚了多少
+ */
+public class DelayQueueBenchmark {
+
+    static final int PRODUCERS = Integer.getInteger("bench.producers", 64);
+    static final int THREADS = Integer.getInteger("bench.threads", Runtime.getRuntime().availableProcessors());
+
+    static class Case {
+        final String name;
+        final Supplier<ScheduledExecutorService> executor;
+
+        Case(String name, Supplier<ScheduledExecutorService> executor) {
+            this.name = name;
+            this.executor = executor;
+        }
+    }
+
+    static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("scheduledThreadPool", () -> new ScheduledThreadPoolExecutor(THREADS)));
+        cases.add(new Case("delayQueue", () -> new DelayQueueScheduledExecutor(THREADS, new DelayQueue<>())));
+        cases.add(new Case("concurrentDelayQueue",
+                () -> new DelayQueueScheduledExecutor(THREADS, new ConcurrentDelayQueue<>())));
+        cases.add(new Case("shardedDelayQueue",
+                () -> new DelayQueueScheduledExecutor(THREADS, new ShardedDelayQueue<>())));
+        return cases;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String filter = null;
+        int n = 640_000;
+        for (String arg : args) {
+            if (arg.matches("\\d+")) {
+                n = Integer.parseInt(arg);
+            } else {
+                filter = arg;
+            }
+        }
+        System.out.printf("producers=%d threads=%d tasks=%d%n", PRODUCERS, THREADS, n);
+        System.out.printf("%-22s %16s %12s %12s %12s %12s %12s%n", "Executor", "schedule(ops/s)", "ns/op",
+                "fire(ms)", "late p50(us)", "late p99(us)", "late max(us)");
+        for (Case c : cases()) {
+            if (filter != null && !c.name.contains(filter)) {
+                continue;
+            }
+            // 预热
+            schedule(c, n / 10);
+            fire(c, n / 10, new LatencyHistogram());
+            long scheduleNanos = schedule(c, n);
+            LatencyHistogram lateness = new LatencyHistogram();
+            long fireNanos = fire(c, n, lateness);
+            System.out.printf("%-22s %16.0f %12.1f %12.1f %12.1f %12.1f %12.1f%n", c.name, n * 1e9 / scheduleNanos,
+                    (double) scheduleNanos / n, fireNanos / 1e6, lateness.percentile(50) / 1000.0,
+                    lateness.percentile(99) / 1000.0, lateness.max() / 1000.0);
+        }
+    }
+
+    /**
+     * 返回提交 n 个任务的时间
+     */
+    static long schedule(Case c, int n) throws Exception {
+        ScheduledExecutorService executor = c.executor.get();
+        Runnable noop = () -> {
+        };
+        long nanos = produce(n, () -> executor.schedule(noop,
+                10_000 + ThreadLocalRandom.current().nextInt(10_000), TimeUnit.MILLISECONDS), new long[1]);
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return nanos;
+    }
+
+    /**
+     * 返回从开始提交到全部执行完的时间
+     */
+    static long fire(Case c, int n, LatencyHistogram lateness) throws Exception {
+        ScheduledExecutorService executor = c.executor.get();
+        CountDownLatch done = new CountDownLatch(n);
+        long[] start = new long[1];
+        produce(n, () -> {
+            long delay = TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextInt(100));
+            long deadline = System.nanoTime() + delay;
+            executor.schedule(() -> {
+                lateness.record(System.nanoTime() - deadline);
+                done.countDown();
+            }, delay, TimeUnit.NANOSECONDS);
+        }, start);
+        done.await();
+        long nanos = System.nanoTime() - start[0];
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return nanos;
+    }
+
+    /**
+     * 所有生产者同时开始提交，开始的时间写入 start[0]，返回从开始到全部提交完的时间。
+     * 开始时间在最后一个到达的生产者中记录，主线程可能很久之后才被调度
+     */
+    private static long produce(int n, Runnable submit, long[] start) throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(PRODUCERS, () -> start[0] = System.nanoTime());
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int count = n / PRODUCERS + (p < n % PRODUCERS ? 1 : 0);
+            Thread producer = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int i = 0; i < count; i++) {
+                    submit.run();
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        return System.nanoTime() - start[0];
+    }
+}
@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 可以替换延迟队列的 ScheduledExecutorService
+ *
+ * ScheduledThreadPoolExecutor 的队列是内部的 DelayedWorkQueue，不能替换。这里的实现很简单：
+ * 固定个数的工作线程不断从队列中 take 到期的任务执行，周期任务执行完之后计算下一次的时间再放回队列。
+ * 队列可以是 java.util.concurrent.DelayQueue，也可以是 ConcurrentDelayQueue 或 ShardedDelayQueue。
+ *
+ * 提交、取消和关闭的语义见 AbstractDelayQueueScheduledExecutor。shutdown 只中断空闲的工作线程，
+ * 正在执行的任务不受影响；shutdownNow 中断所有工作线程。
+ */
+public class DelayQueueScheduledExecutor extends AbstractDelayQueueScheduledExecutor {
+    private final Worker[] workers;
+    private final CountDownLatch terminated;
+
+    public DelayQueueScheduledExecutor(int threads, BlockingQueue<RunnableScheduledFuture<?>> queue) {
+        super(queue);
+        this.workers = new Worker[threads];
+        this.terminated = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker("delay-queue-worker-" + i);
+            workers[i].thread.start();
+        }
+    }
+
+    /**
+     * 和 ThreadPoolExecutor.Worker 一样，执行任务时持有 runLock，shutdown 只中断拿得到这把锁的空闲线程
+     */
+    private final class Worker implements Runnable {
+        final ReentrantLock runLock = new ReentrantLock();
+        final Thread thread;
+
+        Worker(String name) {
+            this.thread = new Thread(this, name);
+        }
+
+        @Override
+        public void run() {
+            work(this);
+        }
+    }
+
+    private void work(Worker worker) {
+        try {
+            RunnableScheduledFuture<?> task;
+            while ((task = takeTask()) != null) {
+                worker.runLock.lock();
+                try {
+                    // shutdown 可能在取出任务之后、加锁之前中断了这个线程，这个中断不应该影响任务；
+                    // shutdownNow 之后则要让任务看到中断
+                    if (isStopped()) {
+                        Thread.currentThread().interrupt();
+                    } else {
+                        Thread.interrupted();
+                    }
+                    task.run();
+                } finally {
+                    worker.runLock.unlock();
+                }
+            }
+        } finally {
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * 批量提交在同一时间执行的任务：只创建一个 ScheduledTask，入队只加一次锁，返回整批任务的 future。
+     * 这批任务在同一个工作线程中按顺序执行，一个任务抛出异常不影响后面的任务，
+     * 第一个异常（其余的作为 suppressed）通过 future.get 抛出。取消 future 会取消还没开始的整批任务
+     */
+    public ScheduledFuture<?> scheduleBatch(Collection<? extends Runnable> commands, long delay, TimeUnit unit) {
+        return enqueue(new ScheduledTask<Void>(new Batch(commands), null, ScheduledTask.triggerTime(delay, unit)));
+    }
+
+    /**
+     * 批量提交任务，第 i 个任务的延迟为 delays[i]。延迟相同的任务合并成一个队列元素，
+     * 返回每批任务的 future，按到期时间排序。分组只遍历一遍任务，排序的只是不同的延迟
+     */
+    public List<ScheduledFuture<?>> scheduleAll(List<? extends Runnable> commands, long[] delays, TimeUnit unit) {
+        if (commands.size() != delays.length) {
+            throw new IllegalArgumentException("commands.size() != delays.length");
+        }
+        int n = delays.length;
+        DelayGroups groups = new DelayGroups();
+        int[] batchOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            batchOf[i] = groups.add(Math.max(delays[i], 0));
+        }
+        int batches = groups.count;
+        int[] sizes = groups.sizes;
+        Runnable[][] grouped = new Runnable[batches][];
+        for (int b = 0; b < batches; b++) {
+            grouped[b] = new Runnable[sizes[b]];
+            sizes[b] = 0;
+        }
+        int i = 0;
+        for (Runnable command : commands) {
+            int b = batchOf[i++];
+            grouped[b][sizes[b]++] = Objects.requireNonNull(command);
+        }
+        long[] sorted = Arrays.copyOf(groups.delays, batches);
+        Arrays.sort(sorted);
+        // 所有批次用同一个当前时间计算触发时间，延迟相同的任务到期时间也相同
+        long now = System.nanoTime();
+        List<ScheduledFuture<?>> futures = new ArrayList<>(batches);
+        for (long delay : sorted) {
+            Batch batch = new Batch(grouped[groups.indexOf(delay)]);
+            futures.add(enqueue(new ScheduledTask<Void>(batch, null, ScheduledTask.triggerTime(now, delay, unit))));
+        }
+        return futures;
+    }
+
+    /**
+     * 延迟到批次下标的开放寻址哈希表，不用 HashMap 是为了避免每个任务装箱一个 Long。
+     * 批次按第一次出现的顺序编号，delays[b] 和 sizes[b] 是第 b 批的延迟和任务数
+     */
+    static final class DelayGroups {
+        // slots[i] 为批次下标加一，0 表示空位；装载因子不超过 1/2
+        private long[] keys = new long[16];
+        private int[] slots = new int[16];
+        long[] delays = new long[8];
+        int[] sizes = new int[8];
+        int count;
+
+        int add(long delay) {
+            int i = find(delay);
+            if (slots[i] != 0) {
+                int b = slots[i] - 1;
+                sizes[b]++;
+                return b;
+            }
+            if (count == delays.length) {
+                resize();
+                i = find(delay);
+            }
+            delays[count] = delay;
+            sizes[count] = 1;
+            keys[i] = delay;
+            slots[i] = ++count;
+            return count - 1;
+        }
+
+        int indexOf(long delay) {
+            return slots[find(delay)] - 1;
+        }
+
+        // delay 所在的位置，不存在时返回它应该插入的空位
+        private int find(long delay) {
+            int mask = keys.length - 1;
+            int i = (int) ((delay * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (slots[i] != 0 && keys[i] != delay) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private void resize() {
+            keys = new long[keys.length * 2];
+            slots = new int[slots.length * 2];
+            delays = Arrays.copyOf(delays, delays.length * 2);
+            sizes = Arrays.copyOf(sizes, sizes.length * 2);
+            for (int b = 0; b < count; b++) {
+                int i = find(delays[b]);
+                keys[i] = delays[b];
+                slots[i] = b + 1;
+            }
+        }
+    }
+
+    static final class Batch implements Runnable {
+        private final Runnable[] commands;
+
+        Batch(Collection<? extends Runnable> commands) {
+            this(commands.toArray(new Runnable[0]));
+            for (Runnable command : this.commands) {
+                Objects.requireNonNull(command);
+            }
+        }
+
+        private Batch(Runnable[] commands) {
+            this.commands = commands;
+        }
+
+        @Override
+        public void run() {
+            RuntimeException failure = null;
+            for (Runnable command : commands) {
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    @Override
+    protected void onShutdown() {
+        for (Worker worker : workers) {
+            if (worker.runLock.tryLock()) {
+                try {
+                    worker.thread.interrupt();
+                } finally {
+                    worker.runLock.unlock();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onShutdownNow() {
+        for (Worker worker : workers) {
+            worker.thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ScheduledExecutorService executor =
+                new DelayQueueScheduledExecutor(2, new ConcurrentDelayQueue<RunnableScheduledFuture<?>>());
+        long start = System.nanoTime();
+        ScheduledFuture<String> future = executor.schedule(() -> "Hello ScheduledFuture", 200, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> periodic = executor.scheduleAtFixedRate(() -> System.out.printf("周期任务：%.1fms%n",
+                (System.nanoTime() - start) / 1e6), 0, 50, TimeUnit.MILLISECONDS);
+        System.out.println(future.get() + "：" + (System.nanoTime() - start) / 1_000_000 + "ms");
+        periodic.cancel(false);
+        executor.shutdown();
+        System.out.println("终止：" + executor.awaitTermination(1, TimeUnit.SECONDS));
+        DelayQueueScheduledExecutor batchExecutor = new DelayQueueScheduledExecutor(2, new DelayQueue<>());
+        System.out.println(batchExecutor.invokeAll(List.of(() -> 1, () -> 2)).size() + " 个任务用 DelayQueue 执行完毕");
+        List<Runnable> commands = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            commands.add(() -> {
+            });
+        }
+        System.out.println("1000 个任务合并为一个 future：" + batchExecutor.scheduleBatch(commands, 10,
+                TimeUnit.MILLISECONDS).get());
+        batchExecutor.shutdown();
+        executor = new DelayQueueScheduledExecutor(2, new ShardedDelayQueue<>());
+        System.out.println(executor.invokeAll(List.of(() -> 1, () -> 2)).size() + " 个任务用 ShardedDelayQueue 执行完毕");
+        executor.shutdown();
+    }
+}
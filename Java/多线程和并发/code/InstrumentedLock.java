@@ -0,0 +1,320 @@
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带统计的 ReentrantLock，用来找出竞争激烈的锁
+ *
+ * 记录的内容：
+ *   等待时间：调用 lock 到拿到锁的时间
+ *   持有时间：第一次加锁到最后一次解锁的时间（重入不单独计算）。Condition.await 会释放锁，
+ *   所以 await 之前和返回之后分别算作两段持有时间，等待 signal 的时间不算在内
+ *   排队长度：拿到锁时 getQueueLength() 的值，每 sampleEvery 次采样一次，因为它需要遍历等待队列
+ *   竞争次数：到达时 hasQueuedThreads() 为 true 的次数
+ *   重入次数和 getHoldCount() 的最大值
+ *   被插队的次数：每次到达时领一个递增的号，如果拿到锁时已经有号更大的线程先拿到过锁，
+ *   说明有后来的线程插队（barging）。非公平锁允许插队，公平锁的 lock 应该接近 0。
+ * 所有统计都可以通过 snapshot() 得到一份快照。
+ */
+public class InstrumentedLock implements Lock {
+    private final String name;
+    private final ReentrantLock lock;
+    private final int sampleEvery;
+
+    private final AtomicLong arrivals = new AtomicLong();
+    // 以下三个字段只在持有锁时读写
+    private long maxGrantedTicket = -1;
+    private long acquiredAt;
+    private long grants;
+
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+    private final LatencyHistogram queueLength = new LatencyHistogram();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder reentrant = new LongAdder();
+    private final LongAdder overtaken = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAccumulator maxHoldCount = new LongAccumulator(Math::max, 0);
+
+    public InstrumentedLock(String name) {
+        this(name, false);
+    }
+
+    public InstrumentedLock(String name, boolean fair) {
+        this(name, fair, 16);
+    }
+
+    public InstrumentedLock(String name, boolean fair, int sampleEvery) {
+        if (sampleEvery <= 0) {
+            throw new IllegalArgumentException("sampleEvery must be positive: " + sampleEvery);
+        }
+        this.name = name;
+        this.lock = new ReentrantLock(fair);
+        this.sampleEvery = sampleEvery;
+    }
+
+    @Override
+    public void lock() {
+        if (lock.isHeldByCurrentThread()) {
+            lock.lock();
+            onReentered();
+            return;
+        }
+        long ticket = arrivals.getAndIncrement();
+        boolean queued = lock.hasQueuedThreads();
+        long start = System.nanoTime();
+        lock.lock();
+        onAcquired(ticket, queued, start);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (lock.isHeldByCurrentThread()) {
+            lock.lockInterruptibly();
+            onReentered();
+            return;
+        }
+        long ticket = arrivals.getAndIncrement();
+        boolean queued = lock.hasQueuedThreads();
+        long start = System.nanoTime();
+        lock.lockInterruptibly();
+        onAcquired(ticket, queued, start);
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (lock.isHeldByCurrentThread()) {
+            lock.lock();
+            onReentered();
+            return true;
+        }
+        long ticket = arrivals.getAndIncrement();
+        boolean queued = lock.hasQueuedThreads();
+        long start = System.nanoTime();
+        if (!lock.tryLock()) {
+            failed.increment();
+            return false;
+        }
+        onAcquired(ticket, queued, start);
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (lock.isHeldByCurrentThread()) {
+            lock.lock();
+            onReentered();
+            return true;
+        }
+        long ticket = arrivals.getAndIncrement();
+        boolean queued = lock.hasQueuedThreads();
+        long start = System.nanoTime();
+        if (!lock.tryLock(time, unit)) {
+            failed.increment();
+            waitTime.record(System.nanoTime() - start);
+            return false;
+        }
+        onAcquired(ticket, queued, start);
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        if (lock.getHoldCount() == 1) {
+            holdTime.record(System.nanoTime() - acquiredAt);
+        }
+        lock.unlock();
+    }
+
+    @Override
+    public Condition newCondition() {
+        return new InstrumentedCondition(lock.newCondition());
+    }
+
+    /**
+     * await 释放锁之前记录一段持有时间，返回时（已经重新拿到锁）开始新的一段
+     */
+    private class InstrumentedCondition implements Condition {
+        private final Condition condition;
+
+        InstrumentedCondition(Condition condition) {
+            this.condition = condition;
+        }
+
+        // 没有持有锁时什么也不做，交给 condition 抛出 IllegalMonitorStateException
+        private boolean beforeAwait() {
+            if (!lock.isHeldByCurrentThread()) {
+                return false;
+            }
+            holdTime.record(System.nanoTime() - acquiredAt);
+            return true;
+        }
+
+        private void afterAwait(boolean held) {
+            if (held) {
+                acquiredAt = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            boolean held = beforeAwait();
+            try {
+                condition.await();
+            } finally {
+                afterAwait(held);
+            }
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            boolean held = beforeAwait();
+            try {
+                condition.awaitUninterruptibly();
+            } finally {
+                afterAwait(held);
+            }
+        }
+
+        @Override
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            boolean held = beforeAwait();
+            try {
+                return condition.awaitNanos(nanosTimeout);
+            } finally {
+                afterAwait(held);
+            }
+        }
+
+        @Override
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            boolean held = beforeAwait();
+            try {
+                return condition.await(time, unit);
+            } finally {
+                afterAwait(held);
+            }
+        }
+
+        @Override
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            boolean held = beforeAwait();
+            try {
+                return condition.awaitUntil(deadline);
+            } finally {
+                afterAwait(held);
+            }
+        }
+
+        @Override
+        public void signal() {
+            condition.signal();
+        }
+
+        @Override
+        public void signalAll() {
+            condition.signalAll();
+        }
+    }
+
+    private void onAcquired(long ticket, boolean queued, long start) {
+        long now = System.nanoTime();
+        acquiredAt = now;
+        waitTime.record(now - start);
+        acquisitions.increment();
+        if (queued) {
+            contended.increment();
+        }
+        if (ticket < maxGrantedTicket) {
+            overtaken.increment();
+        } else {
+            maxGrantedTicket = ticket;
+        }
+        if (grants++ % sampleEvery == 0) {
+            queueLength.record(lock.getQueueLength());
+        }
+        maxHoldCount.accumulate(1);
+    }
+
+    private void onReentered() {
+        reentrant.increment();
+        maxHoldCount.accumulate(lock.getHoldCount());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean isFair() {
+        return lock.isFair();
+    }
+
+    public Metrics snapshot() {
+        return new Metrics(this);
+    }
+
+    /**
+     * 某一时刻的统计数据，时间的单位都是纳秒
+     */
+    public static class Metrics {
+        public final String name;
+        public final boolean fair;
+        public final long acquisitions;
+        public final long contended;
+        public final long reentrant;
+        public final long overtaken;
+        public final long failed;
+        public final long maxHoldCount;
+        public final LatencyHistogram waitTime = new LatencyHistogram();
+        public final LatencyHistogram holdTime = new LatencyHistogram();
+        public final LatencyHistogram queueLength = new LatencyHistogram();
+
+        Metrics(InstrumentedLock lock) {
+            this.name = lock.name;
+            this.fair = lock.isFair();
+            this.acquisitions = lock.acquisitions.sum();
+            this.contended = lock.contended.sum();
+            this.reentrant = lock.reentrant.sum();
+            this.overtaken = lock.overtaken.sum();
+            this.failed = lock.failed.sum();
+            this.maxHoldCount = lock.maxHoldCount.get();
+            this.waitTime.add(lock.waitTime);
+            this.holdTime.add(lock.holdTime);
+            this.queueLength.add(lock.queueLength);
+        }
+
+        // 被插队的比例
+        public double overtakenRatio() {
+            return acquisitions == 0 ? 0 : (double) overtaken / acquisitions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s)%n"
+                            + "  acquisitions=%d contended=%d reentrant=%d overtaken=%d (%.2f%%) failed=%d maxHoldCount=%d%n"
+                            + "  wait: %s%n"
+                            + "  hold: %s%n"
+                            + "  queueLength: n=%d mean=%.1f p50=%d p99=%d max=%d",
+                    name, fair ? "fair" : "nonfair", acquisitions, contended, reentrant, overtaken,
+                    overtakenRatio() * 100, failed, maxHoldCount, waitTime.summary(), holdTime.summary(),
+                    queueLength.count(), queueLength.mean(), queueLength.percentile(50), queueLength.percentile(99),
+                    queueLength.max());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // 和 ExampleReentrantLock 相同的负载，分别用非公平锁和公平锁
+        for (boolean fair : new boolean[]{false, true}) {
+            InstrumentedLock lock = new InstrumentedLock("ExampleReentrantLock.lock", fair);
+            CounterBenchmark.run(new Counter.LockCounter(lock), ExampleReentrantLock.clientTotal,
+                    ExampleReentrantLock.threadTotal, 100, new LatencyHistogram());
+            System.out.println(lock.snapshot());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * DelayQueueScheduledExecutor 和 VirtualThreadScheduledExecutor 共用的任务
+ *
+ * 和 ScheduledThreadPoolExecutor.ScheduledFutureTask 相同：按触发时间排序，时间相同时按提交顺序。
+ * period 大于 0 为固定速率，小于 0 为固定延迟。周期任务执行完之后计算下一次的时间，
+ * 交给执行器的 requeue 放回队列，requeue 返回 false（已经 shutdown）时任务被取消。
+ */
+class ScheduledTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+    private static final AtomicLong SEQUENCER = new AtomicLong();
+
+    private final long sequenceNumber = SEQUENCER.getAndIncrement();
+    private final long period;
+    private final Predicate<? super ScheduledTask<V>> requeue;
+    private volatile long time;
+
+    ScheduledTask(Runnable runnable, V result, long time) {
+        this(runnable, result, time, 0, null);
+    }
+
+    ScheduledTask(Runnable runnable, V result, long time, long period, Predicate<? super ScheduledTask<V>> requeue) {
+        super(runnable, result);
+        this.time = time;
+        this.period = period;
+        this.requeue = requeue;
+    }
+
+    ScheduledTask(Callable<V> callable, long time) {
+        super(callable);
+        this.time = time;
+        this.period = 0;
+        this.requeue = null;
+    }
+
+    static long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(System.nanoTime(), delay, unit);
+    }
+
+    /**
+     * 以 now 为起点计算触发时间，负的延迟按 0 处理。和 ScheduledThreadPoolExecutor 一样把延迟限制在
+     * Long.MAX_VALUE >> 1 以内，很大的延迟加上 now 不会溢出成负数，compareTo 中两个时间相减也不会溢出
+     */
+    static long triggerTime(long now, long delay, TimeUnit unit) {
+        return now + Math.min(unit.toNanos(Math.max(delay, 0)), Long.MAX_VALUE >> 1);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(time - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other == this) {
+            return 0;
+        }
+        if (other instanceof ScheduledTask) {
+            ScheduledTask<?> x = (ScheduledTask<?>) other;
+            long diff = time - x.time;
+            if (diff != 0) {
+                return diff < 0 ? -1 : 1;
+            }
+            return sequenceNumber < x.sequenceNumber ? -1 : 1;
+        }
+        long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+        return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+    }
+
+    @Override
+    public boolean isPeriodic() {
+        return period != 0;
+    }
+
+    @Override
+    public void run() {
+        if (!isPeriodic()) {
+            super.run();
+        } else if (super.runAndReset()) {
+            time = period > 0 ? time + period : System.nanoTime() - period;
+            if (!requeue.test(this)) {
+                cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 任务还没执行就失败时（比如创建不了线程）用这个异常结束
+     */
+    void fail(Throwable t) {
+        setException(t);
+    }
+}
@@ -18,20 +18,19 @@ import java.util.concurrent.TimeUnit;
 public class ScheduledThreadPoolExecutorExample {
 
     public static void main(String[] args) throws Exception {
-        DelayQueue
         ScheduledExecutorService scheduledExecutor = Executors.newScheduledThreadPool(10);
         Instant start = Instant.now();
         System.out.println("开始时间：" + start);
         scheduledExecutor.schedule(() -> {
             System.out.println("Hello ScheduledThreadPoolExecutor!");
-            System.out.println("执行完毕：" + Duration.between(start, Instant.now()).getSeconds() + "s");
+            System.out.println("执行完毕：" + Duration.between(start, Instant.now()).toMillis() + "ms");
         }, 5, TimeUnit.SECONDS);
         Instant s = Instant.now();
         ScheduledFuture<String> scheduledFuture = scheduledExecutor.schedule(() -> "Hello ScheduledFuture", 5,
                 TimeUnit.SECONDS);
         System.out.println("开始时间：" + start);
         System.out.println("结果输出: " + scheduledFuture.get());
-        System.out.println("执行完毕：" + Duration.between(s, Instant.now()).getSeconds() + "s");
+        System.out.println("执行完毕：" + Duration.between(s, Instant.now()).toMillis() + "ms");
         scheduledExecutor.shutdown();
     }
 }
\ No newline at end of file
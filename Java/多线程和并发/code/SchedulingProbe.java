@@ -0,0 +1,166 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 测量定时任务实际开始执行的时间比应该执行的时间晚了多少（纳秒），用来决定线程池该开多大
+ *
+ * 三种调度方式应该执行的时间：
+ *   schedule：提交时的时间加上 delay
+ *   scheduleAtFixedRate：第一次执行的时间加上 k 个 period
+ *   scheduleWithFixedDelay：上一次执行结束的时间加上 delay
+ *
+ * 运行方式：
+ *   javac LatencyHistogram.java SchedulingProbe.java
+ *   java [-Dprobe.pool=10] [-Dprobe.tasks=100] [-Dprobe.period=10] [-Dprobe.work=50] [-Dprobe.blocking=false]
+ *        [-Dprobe.duration=3000] SchedulingProbe
+ * pool 为 newScheduledThreadPool 的线程数，tasks 为任务数，period 为周期任务的间隔（毫秒），
+ * work 为每次执行的耗时（微秒），blocking 为 true 时用 park 模拟阻塞，否则空转占用 CPU，
+ * duration 为每种方式运行的时间（毫秒），一次性任务的延迟均匀分布在这段时间内。
+ */
+public class SchedulingProbe {
+
+    public enum Mode {
+        ONE_SHOT, FIXED_RATE, FIXED_DELAY
+    }
+
+    // 第一次执行前留出的时间，避免提交任务的过程影响结果
+    static final long LEAD_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    final int tasks;
+    final long periodNanos;
+    final long workNanos;
+    final boolean blocking;
+    final long durationNanos;
+
+    public SchedulingProbe(int tasks, long periodNanos, long workNanos, boolean blocking, long durationNanos) {
+        this.tasks = tasks;
+        this.periodNanos = periodNanos;
+        this.workNanos = workNanos;
+        this.blocking = blocking;
+        this.durationNanos = durationNanos;
+    }
+
+    static SchedulingProbe fromSystemProperties() {
+        return fromSystemProperties(50, false);
+    }
+
+    /**
+     * 和 fromSystemProperties() 相同，只是 probe.work（微秒）和 probe.blocking 的默认值不同
+     */
+    static SchedulingProbe fromSystemProperties(long defaultWorkMicros, boolean defaultBlocking) {
+        return new SchedulingProbe(Integer.getInteger("probe.tasks", 100),
+                TimeUnit.MILLISECONDS.toNanos(Long.getLong("probe.period", 10)),
+                TimeUnit.MICROSECONDS.toNanos(Long.getLong("probe.work", defaultWorkMicros)),
+                Boolean.parseBoolean(System.getProperty("probe.blocking", String.valueOf(defaultBlocking))),
+                TimeUnit.MILLISECONDS.toNanos(Long.getLong("probe.duration", 3000)));
+    }
+
+    /**
+     * 用 executor 运行一种调度方式，返回每次执行的延迟。不会关闭 executor
+     */
+    public LatencyHistogram run(ScheduledExecutorService executor, Mode mode) throws InterruptedException {
+        LatencyHistogram lateness = new LatencyHistogram();
+        if (mode == Mode.ONE_SHOT) {
+            CountDownLatch done = new CountDownLatch(tasks);
+            long base = System.nanoTime() + LEAD_NANOS;
+            for (int i = 0; i < tasks; i++) {
+                long intended = base + durationNanos * i / tasks;
+                executor.schedule(() -> {
+                    lateness.record(System.nanoTime() - intended);
+                    work();
+                    done.countDown();
+                }, intended - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            done.await();
+            return lateness;
+        }
+        List<ScheduledFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            // 第一次执行的时间均匀分布在一个周期内
+            long initialDelay = LEAD_NANOS + periodNanos * i / tasks;
+            PeriodicTask task = new PeriodicTask(mode == Mode.FIXED_RATE, System.nanoTime() + initialDelay, lateness);
+            if (mode == Mode.FIXED_RATE) {
+                futures.add(executor.scheduleAtFixedRate(task, initialDelay, periodNanos, TimeUnit.NANOSECONDS));
+            } else {
+                futures.add(executor.scheduleWithFixedDelay(task, initialDelay, periodNanos, TimeUnit.NANOSECONDS));
+            }
+        }
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(LEAD_NANOS + durationNanos));
+        for (ScheduledFuture<?> future : futures) {
+            future.cancel(false);
+        }
+        return lateness;
+    }
+
+    void work() {
+        if (workNanos <= 0) {
+            return;
+        }
+        if (blocking) {
+            LockSupport.parkNanos(workNanos);
+            return;
+        }
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < workNanos) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 周期任务，记录下一次应该执行的时间。同一个任务不会并发执行，所以字段不需要同步
+     */
+    class PeriodicTask implements Runnable {
+        final boolean fixedRate;
+        final LatencyHistogram lateness;
+        long intended;
+
+        PeriodicTask(boolean fixedRate, long intended, LatencyHistogram lateness) {
+            this.fixedRate = fixedRate;
+            this.intended = intended;
+            this.lateness = lateness;
+        }
+
+        @Override
+        public void run() {
+            lateness.record(System.nanoTime() - intended);
+            work();
+            intended = fixedRate ? intended + periodNanos : System.nanoTime() + periodNanos;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int pool = Integer.getInteger("probe.pool", 10);
+        SchedulingProbe probe = fromSystemProperties();
+        System.out.println(probe.describe() + " pool=" + pool);
+        printHeader();
+        for (Mode mode : Mode.values()) {
+            ScheduledExecutorService executor = Executors.newScheduledThreadPool(pool);
+            print(mode.name(), probe.run(executor, mode));
+            executor.shutdownNow();
+        }
+    }
+
+    String describe() {
+        return String.format("tasks=%d period=%dms work=%dus blocking=%b duration=%dms", tasks,
+                TimeUnit.NANOSECONDS.toMillis(periodNanos), TimeUnit.NANOSECONDS.toMicros(workNanos), blocking,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    static void printHeader() {
+        System.out.printf("%-24s %12s %12s %12s %12s %12s %12s %12s%n", "mode", "executions", "p50(us)", "p90(us)",
+                "p99(us)", "p99.9(us)", "p99.99(us)", "max(us)");
+    }
+
+    static void print(String name, LatencyHistogram lateness) {
+        System.out.printf("%-24s %12d %12.1f %12.1f %12.1f %12.1f %12.1f %12.1f%n", name, lateness.count(),
+                lateness.percentile(50) / 1000.0, lateness.percentile(90) / 1000.0,
+                lateness.percentile(99) / 1000.0, lateness.percentile(99.9) / 1000.0,
+                lateness.percentile(99.99) / 1000.0, lateness.max() / 1000.0);
+    }
+}
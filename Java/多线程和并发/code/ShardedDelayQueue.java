@@ -0,0 +1,356 @@
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * 分片的延迟队列，可以代替 DelayQueue
+ *
+ * DelayQueue 和 ScheduledThreadPoolExecutor 内部的 DelayedWorkQueue 都是一个堆加一把 ReentrantLock，
+ * 很多线程同时提交任务时都在这把锁上排队。这里把队列分成若干个分片，每个分片是一个堆和一把锁，
+ * 生产者按线程选择分片，不同线程基本不会争用同一把锁。每个分片用一个 volatile 字段记录堆顶的到期时间，
+ * 消费者不加锁地扫描所有分片的堆顶，找到最早到期的分片，只锁这一个分片取出元素。
+ *
+ * 消费者需要等待时在一个单独的锁上等待：先把 waiters 加一，再扫描一次堆顶，然后等到最早的到期时间。
+ * 生产者放入新的堆顶之后先更新堆顶的时间，再检查 waiters，两边都是 volatile 读写，
+ * 所以要么消费者扫描时看到了新的堆顶，要么生产者看到有消费者在等待并唤醒它，不会丢失唤醒。
+ * 没有消费者在等待或者新元素没有成为堆顶时，生产者只加自己分片的锁。
+ */
+public class ShardedDelayQueue<E extends Delayed> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private static final long EMPTY = Long.MAX_VALUE;
+
+    static final class Shard<E> {
+        final ReentrantLock lock = new ReentrantLock();
+        final PriorityQueue<E> heap = new PriorityQueue<>();
+        // 堆顶元素的到期时间（System.nanoTime），堆为空时为 EMPTY
+        volatile long head = EMPTY;
+    }
+
+    private final Shard<E>[] shards;
+    private final int mask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // 正在等待的消费者个数
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public ShardedDelayQueue() {
+        this(Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) * 4);
+    }
+
+    /**
+     * @param shards 分片数，必须是 2 的幂
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedDelayQueue(int shards) {
+        if (shards <= 0 || Integer.bitCount(shards) != 1) {
+            throw new IllegalArgumentException("shards: " + shards);
+        }
+        this.shards = (Shard<E>[]) new Shard<?>[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard<>();
+        }
+        this.mask = shards - 1;
+    }
+
+    private Shard<E> shardOfCurrentThread() {
+        long id = Thread.currentThread().getId();
+        return shards[(int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask];
+    }
+
+    private static long deadline(Delayed e) {
+        return System.nanoTime() + e.getDelay(TimeUnit.NANOSECONDS);
+    }
+
+    private static <E> void updateHead(Shard<E> shard) {
+        E first = shard.heap.peek();
+        shard.head = first == null ? EMPTY : deadline((Delayed) first);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        Shard<E> shard = shardOfCurrentThread();
+        boolean newHead;
+        shard.lock.lock();
+        try {
+            shard.heap.offer(e);
+            newHead = shard.heap.peek() == e;
+            if (newHead) {
+                shard.head = deadline(e);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        if (newHead && waiters.get() > 0) {
+            signal();
+        }
+        return true;
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    // 堆顶到期时间最早的分片，都为空时返回 -1
+    private int earliestShard() {
+        int best = -1;
+        long min = EMPTY;
+        for (int i = 0; i < shards.length; i++) {
+            long head = shards[i].head;
+            if (head != EMPTY && (best < 0 || head - min < 0)) {
+                best = i;
+                min = head;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public E poll() {
+        while (true) {
+            int best = earliestShard();
+            if (best < 0 || shards[best].head - System.nanoTime() > 0) {
+                return null;
+            }
+            Shard<E> shard = shards[best];
+            E e = null;
+            shard.lock.lock();
+            try {
+                E first = shard.heap.peek();
+                if (first != null && first.getDelay(TimeUnit.NANOSECONDS) <= 0) {
+                    e = shard.heap.poll();
+                }
+                // 没有取出元素时也要重新计算：head 可能已经过时（元素被别的线程取走，或者元素自己的 getDelay
+                // 和缓存的时间有偏差），否则下一次循环看到的还是这个到期的 head，一直空转到元素自己到期
+                updateHead(shard);
+            } finally {
+                shard.lock.unlock();
+            }
+            if (e != null) {
+                // 还有元素时唤醒另一个消费者等待新的堆顶
+                if (waiters.get() > 0 && earliestShard() >= 0) {
+                    signal();
+                }
+                return e;
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        while (true) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            await(Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            await(remaining);
+        }
+    }
+
+    private void await(long maxNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        waiters.incrementAndGet();
+        try {
+            int best = earliestShard();
+            long nanos = best < 0 ? maxNanos : Math.min(maxNanos, shards[best].head - System.nanoTime());
+            if (nanos > 0) {
+                available.awaitNanos(nanos);
+            }
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        int best = earliestShard();
+        if (best < 0) {
+            return null;
+        }
+        Shard<E> shard = shards[best];
+        shard.lock.lock();
+        try {
+            return shard.heap.peek();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.heap.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return earliestShard() < 0;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * O(n)，需要遍历整个分片
+     */
+    @Override
+    public boolean remove(Object o) {
+        for (Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                if (shard.heap.remove(o)) {
+                    updateHead(shard);
+                    return true;
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 每个分片只加一次锁，比逐个 remove 快，shutdown 删除取消的任务时用到
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        boolean removed = false;
+        for (Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                if (shard.heap.removeIf(filter)) {
+                    updateHead(shard);
+                    removed = true;
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.heap.clear();
+                shard.head = EMPTY;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 只取出已经到期的元素，和 DelayQueue 相同
+     */
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 遍历调用时的快照，不保证顺序
+     */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        for (Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                snapshot.addAll(shard.heap);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        Iterator<E> it = snapshot.iterator();
+        return new Iterator<E>() {
+            E last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                ShardedDelayQueue.this.remove(last);
+            }
+        };
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 比较 java.util.Timer、ScheduledThreadPoolExecutor 和 TimingWheelTimer 在大量定时任务下的表现
+ *
+ * 运行方式：
+ *   javac LatencyHistogram.java TimingWheelTimer.java TimerBenchmark.java
+ *   java -Xmx2g TimerBenchmark [名称过滤] [定时任务数]
+ * 默认 1000000 个定时任务，每种定时器测三项：
+ *   schedule：提交 n 个 60 ~ 120 秒之后才到期的任务，平均每次的耗时，以及 GC 之后每个任务占用的堆内存
+ *   cancel：取消这 n 个任务的平均耗时。Timer 还要调用 purge 才会真正删除，
+ *           ScheduledThreadPoolExecutor 打开了 removeOnCancelPolicy，取消时立即从队列删除
+ *   fire：n 个任务的到期时间均匀分布在 1 秒内，统计实际执行时间比到期时间晚了多少
+ * TimingWheelTimer 的 newTimeout 和 cancel 只是放进无锁队列，插入和摘除由定时器线程完成，
+ * 所以它的 schedule 和 cancel 时间包括等待定时器线程处理完队列的时间（awaitProcessed），
+ * 这样和另外两种定时器一样都算上了堆或者链表的操作。
+ */
+public class TimerBenchmark {
+
+    static final long FIRE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 统一三种定时器的接口，schedule 返回用于取消的句柄
+     */
+    interface Scheduler {
+        Object schedule(Runnable task, long delayNanos);
+
+        void cancel(Object handle);
+
+        // 全部取消之后调用
+        default void afterCancel() {
+        }
+
+        // 等待异步完成的 schedule 和 cancel 处理完
+        default void awaitProcessed() throws InterruptedException {
+        }
+
+        void shutdown();
+    }
+
+    static class TimerScheduler implements Scheduler {
+        final Timer timer = new Timer(true);
+
+        @Override
+        public Object schedule(Runnable task, long delayNanos) {
+            TimerTask timerTask = new TimerTask() {
+                @Override
+                public void run() {
+                    task.run();
+                }
+            };
+            timer.schedule(timerTask, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            return timerTask;
+        }
+
+        @Override
+        public void cancel(Object handle) {
+            ((TimerTask) handle).cancel();
+        }
+
+        @Override
+        public void afterCancel() {
+            timer.purge();
+        }
+
+        @Override
+        public void shutdown() {
+            timer.cancel();
+        }
+    }
+
+    static class ExecutorScheduler implements Scheduler {
+        final ScheduledThreadPoolExecutor executor =
+                new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors());
+
+        ExecutorScheduler() {
+            executor.setRemoveOnCancelPolicy(true);
+        }
+
+        @Override
+        public Object schedule(Runnable task, long delayNanos) {
+            return executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void cancel(Object handle) {
+            ((ScheduledFuture<?>) handle).cancel(false);
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    static class WheelScheduler implements Scheduler {
+        final TimingWheelTimer timer;
+
+        WheelScheduler(Executor executor) {
+            timer = new TimingWheelTimer(1, TimeUnit.MILLISECONDS, 512, executor);
+        }
+
+        @Override
+        public Object schedule(Runnable task, long delayNanos) {
+            return timer.newTimeout(task, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void cancel(Object handle) {
+            ((TimingWheelTimer.Timeout) handle).cancel();
+        }
+
+        @Override
+        public void awaitProcessed() throws InterruptedException {
+            timer.awaitProcessed();
+        }
+
+        @Override
+        public void shutdown() {
+            timer.stop();
+        }
+    }
+
+    static class Case {
+        final String name;
+        final Supplier<Scheduler> scheduler;
+
+        Case(String name, Supplier<Scheduler> scheduler) {
+            this.name = name;
+            this.scheduler = scheduler;
+        }
+    }
+
+    static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("timer", TimerScheduler::new));
+        cases.add(new Case("scheduledThreadPool", ExecutorScheduler::new));
+        cases.add(new Case("timingWheel", () -> new WheelScheduler(null)));
+        // 任务直接在定时器线程中执行，和 Timer 一样，可以看出交给线程池的开销
+        cases.add(new Case("timingWheel.inline", () -> new WheelScheduler(Runnable::run)));
+        return cases;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String filter = null;
+        int n = 1_000_000;
+        for (String arg : args) {
+            if (arg.matches("\\d+")) {
+                n = Integer.parseInt(arg);
+            } else {
+                filter = arg;
+            }
+        }
+        System.out.printf("%-20s %10s %14s %14s %12s %12s %12s %12s%n", "Scheduler", "timers", "schedule(ns)",
+                "cancel(ns)", "B/timer", "late p50(us)", "late p99(us)", "late max(us)");
+        for (Case c : cases()) {
+            if (filter != null && !c.name.contains(filter)) {
+                continue;
+            }
+            // 预热一轮
+            run(c, Math.min(n, 100_000));
+            run(c, n);
+        }
+    }
+
+    static void run(Case c, int n) throws InterruptedException {
+        Scheduler scheduler = c.scheduler.get();
+        Random random = new Random(n);
+        Runnable noop = () -> {
+        };
+        Object[] handles = new Object[n];
+        long heap = usedHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            handles[i] = scheduler.schedule(noop, TimeUnit.SECONDS.toNanos(60 + random.nextInt(60)));
+        }
+        scheduler.awaitProcessed();
+        long scheduleNanos = System.nanoTime() - start;
+        long bytes = usedHeap() - heap;
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            scheduler.cancel(handles[i]);
+        }
+        scheduler.afterCancel();
+        scheduler.awaitProcessed();
+        long cancelNanos = System.nanoTime() - start;
+        handles = null;
+
+        LatencyHistogram lateness = new LatencyHistogram();
+        CountDownLatch fired = new CountDownLatch(n);
+        long base = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            long deadline = base + FIRE_WINDOW_NANOS * i / n;
+            scheduler.schedule(() -> {
+                lateness.record(System.nanoTime() - deadline);
+                fired.countDown();
+            }, Math.max(0, deadline - System.nanoTime()));
+        }
+        fired.await();
+        scheduler.shutdown();
+        System.out.printf("%-20s %10d %14.1f %14.1f %12.1f %12.1f %12.1f %12.1f%n", c.name, n,
+                (double) scheduleNanos / n, (double) cancelNanos / n, (double) bytes / n,
+                lateness.percentile(50) / 1000.0, lateness.percentile(99) / 1000.0, lateness.max() / 1000.0);
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,377 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分层时间轮（hashed hierarchical timing wheel）实现的定时器
+ *
+ * java.util.Timer 用一个小顶堆保存任务，插入和删除都是 O(log n)，而且所有任务都在唯一的定时器线程中执行，
+ * 一个任务执行得慢，后面所有的任务都会被推迟。这里的定时器把时间分成固定长度的 tick（默认 1ms），
+ * 每一层时间轮有 wheelSize 个槽：第 0 层每个槽 1 个 tick，第 1 层每个槽 wheelSize 个 tick，以此类推。
+ * 任务按到期时间离现在的远近放进某一层的某个槽中（双向链表），插入和取消都是 O(1)。
+ * 每过一个 tick，第 0 层当前槽中的任务到期；每过 wheelSize 个 tick，把上一层对应槽中的任务重新放到下一层。
+ *
+ * 调用 newTimeout 的线程只把任务放进一个无锁队列，由定时器线程放进时间轮；取消时也只是改变状态并放进另一个队列，
+ * 由定时器线程从链表中摘除，所以时间轮本身只被定时器线程访问，不需要加锁。
+ * 到期的任务交给另一个线程池执行，定时器线程不会被慢任务拖住。任务最多可能晚一个 tick 执行。
+ * 周期任务在这一次执行完之后才重新放回时间轮，和 Timer、ScheduledThreadPoolExecutor 一样，同一个任务不会并发执行。
+ */
+public class TimingWheelTimer implements AutoCloseable {
+    static final int PENDING = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    // wheels[level][slot] 是链表的哨兵结点
+    private final Timeout[][] wheels;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final Queue<CountDownLatch> barriers = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final long startNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+    // 已经处理到的 tick，只由定时器线程访问
+    private long currentTick;
+
+    public TimingWheelTimer() {
+        this(1, TimeUnit.MILLISECONDS, 512, null);
+    }
+
+    /**
+     * @param wheelSize 每层的槽数，必须是 2 的幂
+     * @param executor  执行到期任务的线程池，为 null 时创建一个线程数等于 CPU 核数的线程池，stop 时关闭
+     */
+    public TimingWheelTimer(long tick, TimeUnit unit, int wheelSize, Executor executor) {
+        if (tick <= 0 || wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tick: " + tick + ", wheelSize: " + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tick);
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        // 最高层要能容纳 2^63 个 tick 之内的任何时间
+        this.wheels = new Timeout[(63 + bits - 1) / bits][wheelSize];
+        for (Timeout[] wheel : wheels) {
+            for (int i = 0; i < wheelSize; i++) {
+                wheel[i] = new Timeout(null, null, 0, 0, false);
+                wheel[i].prev = wheel[i];
+                wheel[i].next = wheel[i];
+            }
+        }
+        if (executor == null) {
+            ownedExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "timing-wheel-worker");
+                t.setDaemon(true);
+                return t;
+            });
+            this.executor = ownedExecutor;
+        } else {
+            ownedExecutor = null;
+            this.executor = executor;
+        }
+        this.startNanos = System.nanoTime();
+        this.thread = new Thread(this::loop, "timing-wheel");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, delay, 0, false, unit);
+    }
+
+    /**
+     * @param period    为 0 时只执行一次
+     * @param fixedRate 为 true 时下一次的到期时间为上一次的到期时间加 period，否则为这一次执行结束时加 period
+     */
+    public Timeout schedule(Runnable task, long delay, long period, boolean fixedRate, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("timer already stopped");
+        }
+        long elapsed = Math.max(0, System.nanoTime() - startNanos);
+        long deadlineTick = ceilTicks(saturatedAdd(elapsed, unit.toNanos(Math.max(delay, 0))));
+        long periodTicks = period <= 0 ? 0 : Math.max(1, ceilTicks(unit.toNanos(period)));
+        Timeout timeout = new Timeout(this, task, deadlineTick, periodTicks, fixedRate);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    private long ceilTicks(long nanos) {
+        return nanos / tickNanos + (nanos % tickNanos == 0 ? 0 : 1);
+    }
+
+    // 两个非负数相加，溢出时饱和到 Long.MAX_VALUE，delay 很大时到期时间不会变成负数
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    // 现在所在的 tick，和 currentTick 不同，任何线程都可以调用
+    private long nowTick() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    /**
+     * 等待定时器线程处理完调用之前提交的 newTimeout 和 cancel（放进或者摘出时间轮），用来测量这部分开销
+     */
+    public void awaitProcessed() throws InterruptedException {
+        CountDownLatch barrier = new CountDownLatch(1);
+        barriers.add(barrier);
+        // 定时器已经停止时不再等待
+        while (running) {
+            if (barrier.await(10, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    // 还没有到期也没有取消的任务数
+    public long pending() {
+        return pending.get();
+    }
+
+    /**
+     * 停止定时器，还没有到期的任务不会再执行
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void loop() {
+        while (running) {
+            long wait = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            // 先取出 barrier 再处理两个队列，barrier 之前提交的操作一定会在这一轮被处理
+            List<CountDownLatch> reached = null;
+            CountDownLatch barrier;
+            while ((barrier = barriers.poll()) != null) {
+                if (reached == null) {
+                    reached = new ArrayList<>();
+                }
+                reached.add(barrier);
+            }
+            transferAdded();
+            removeCancelled();
+            if (reached != null) {
+                reached.forEach(CountDownLatch::countDown);
+            }
+            long target = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick < target) {
+                currentTick++;
+                tick();
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state == PENDING) {
+                insert(timeout);
+            }
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.next != null) {
+                unlink(timeout);
+            }
+        }
+    }
+
+    private void insert(Timeout timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expire(timeout);
+            return;
+        }
+        int level = 0;
+        while (level + 1 < wheels.length && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        Timeout head = wheels[level][(int) (timeout.deadlineTick >>> (bits * level)) & mask];
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+
+    private static void unlink(Timeout timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    private void tick() {
+        // 当前 tick 是 wheelSize^level 的整数倍时，从高到低把第 level 层对应槽中的任务放到下层
+        int level = 0;
+        while (level + 1 < wheels.length && (currentTick & ((1L << (bits * (level + 1))) - 1)) == 0) {
+            level++;
+        }
+        for (; level >= 1; level--) {
+            Timeout head = wheels[level][(int) (currentTick >>> (bits * level)) & mask];
+            for (Timeout t = detach(head), next; t != head; t = next) {
+                next = t.next;
+                t.prev = null;
+                t.next = null;
+                insert(t);
+            }
+        }
+        Timeout head = wheels[0][(int) currentTick & mask];
+        for (Timeout t = detach(head), next; t != head; t = next) {
+            next = t.next;
+            t.prev = null;
+            t.next = null;
+            expire(t);
+        }
+    }
+
+    // 清空一个槽，返回原来链表的第一个结点，最后一个结点的 next 仍然是 head
+    private static Timeout detach(Timeout head) {
+        Timeout first = head.next;
+        head.next = head;
+        head.prev = head;
+        return first;
+    }
+
+    private void expire(Timeout timeout) {
+        if (timeout.periodTicks == 0) {
+            if (!STATE.compareAndSet(timeout, PENDING, EXPIRED)) {
+                return;
+            }
+            pending.decrementAndGet();
+            executor.execute(timeout);
+            return;
+        }
+        if (timeout.state != PENDING) {
+            return;
+        }
+        // 周期任务由 Timeout.run 在执行完之后放回 added 队列
+        executor.execute(timeout);
+    }
+
+    // 在执行任务的线程中调用，计算下一次的到期时间，由定时器线程放回时间轮
+    private void reschedule(Timeout timeout) {
+        long now = nowTick();
+        // 固定速率的任务落后时不补执行，最早下一个 tick 再执行
+        timeout.deadlineTick = timeout.fixedRate
+                ? Math.max(saturatedAdd(timeout.deadlineTick, timeout.periodTicks), now + 1)
+                : saturatedAdd(now, timeout.periodTicks);
+        added.add(timeout);
+    }
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    /**
+     * newTimeout 返回的句柄，可以用来取消任务
+     */
+    public static final class Timeout implements Runnable {
+        private final TimingWheelTimer timer;
+        private final Runnable task;
+        private final long periodTicks;
+        private final boolean fixedRate;
+        private long deadlineTick;
+        volatile int state;
+        // 所在槽的链表，只由定时器线程访问
+        private Timeout prev;
+        private Timeout next;
+
+        Timeout(TimingWheelTimer timer, Runnable task, long deadlineTick, long periodTicks, boolean fixedRate) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+            this.periodTicks = periodTicks;
+            this.fixedRate = fixedRate;
+        }
+
+        /**
+         * 取消任务，返回 false 表示任务已经到期或者已经取消。周期任务取消后不会再执行
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            timer.pending.decrementAndGet();
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        public Runnable task() {
+            return task;
+        }
+
+        @Override
+        public void run() {
+            if (state == CANCELLED) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                // 和 ScheduledThreadPoolExecutor 一样，周期任务抛出异常后不再执行
+                cancel();
+                throw e;
+            }
+            if (periodTicks != 0 && state == PENDING) {
+                timer.reschedule(this);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (TimingWheelTimer timer = new TimingWheelTimer()) {
+            long start = System.nanoTime();
+            for (int delay : new int[]{300, 100, 200, 1000}) {
+                timer.newTimeout(() -> System.out.printf("%dms 的任务在 %.1fms 时执行%n", delay,
+                        (System.nanoTime() - start) / 1e6), delay, TimeUnit.MILLISECONDS);
+            }
+            Timeout cancelled = timer.newTimeout(() -> System.out.println("不应该执行"), 150, TimeUnit.MILLISECONDS);
+            System.out.println("取消 150ms 的任务：" + cancelled.cancel() + "，还有 " + timer.pending() + " 个任务");
+            Thread.sleep(1200);
+        }
+    }
+}
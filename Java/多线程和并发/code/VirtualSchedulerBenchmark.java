@@ -0,0 +1,42 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务会阻塞时，比较 newScheduledThreadPool(10) 和每次执行一个新线程的 VirtualThreadScheduledExecutor
+ *
+ * 运行方式：
+ *   javac LatencyHistogram.java SchedulingProbe.java VirtualThreads.java ScheduledTask.java
+ *         AbstractDelayQueueScheduledExecutor.java VirtualThreadScheduledExecutor.java VirtualSchedulerBenchmark.java
+ *   java [-Dprobe.pool=10] [-Dprobe.work=5000] [-Dprobe.blocking=true] [其他 probe.* 参数] VirtualSchedulerBenchmark
+ * 用 SchedulingProbe 测量三种调度方式的延迟，参数的含义见 SchedulingProbe。默认每次执行阻塞 5ms（park，模拟 I/O），
+ * 100 个任务每 10ms 执行一次，同时阻塞的任务大约有 50 个，10 个线程的线程池每 10ms 只能执行 20 次。
+ * 阻塞时间不要超过 period，否则周期任务即使有足够的线程也跟不上（同一个周期任务不会并发执行）。
+ * 每种调度方式之后输出这段时间内线程数的峰值。JDK 17 上 VirtualThreadScheduledExecutor 每次执行创建一个平台线程。
+ */
+public class VirtualSchedulerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int pool = Integer.getInteger("probe.pool", 10);
+        SchedulingProbe probe = SchedulingProbe.fromSystemProperties(5_000, true);
+        System.out.println(probe.describe() + " pool=" + pool + " perTask="
+                + (VirtualThreads.isSupported() ? "virtual" : "platform") + " threads");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        SchedulingProbe.printHeader();
+        for (SchedulingProbe.Mode mode : SchedulingProbe.Mode.values()) {
+            for (String name : new String[]{"fixedPool", "perTask"}) {
+                ScheduledExecutorService executor = name.equals("fixedPool")
+                        ? Executors.newScheduledThreadPool(pool) : new VirtualThreadScheduledExecutor();
+                threads.resetPeakThreadCount();
+                LatencyHistogram lateness = probe.run(executor, mode);
+                int peakThreads = threads.getPeakThreadCount();
+                executor.shutdownNow();
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+                SchedulingProbe.print(name + "." + mode.name(), lateness);
+                System.out.println("  peak threads: " + peakThreads);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个平台线程负责计时，到期的任务每次在一个新的虚拟线程中执行的 ScheduledExecutorService
+ *
+ * newScheduledThreadPool(10) 只有 10 个线程，任务阻塞（I/O、sleep、等锁）的时候线程被占住，
+ * 后面到期的任务只能排队，执行时间越来越晚。这里计时线程只负责从 DelayQueue 中取出到期的任务，
+ * 交给 ThreadFactory 创建的新线程执行，阻塞的任务不会影响其他任务。
+ *
+ * 在 JDK 21 以上用 VirtualThreads.factory() 创建虚拟线程；JDK 17 上没有虚拟线程，
+ * 默认退化为每次执行创建一个平台线程，语义不变，只是线程的创建和内存开销大得多。
+ *
+ * ScheduledFuture 的语义和 ScheduledThreadPoolExecutor 相同：get 等待结果，cancel(true) 中断正在执行的线程。
+ * 提交、取消和关闭的语义见 AbstractDelayQueueScheduledExecutor，和 DelayQueueScheduledExecutor 只有执行方式不同。
+ * 队列中没有未取消的任务时计时线程退出；shutdownNow 中断所有正在执行的任务。
+ */
+public class VirtualThreadScheduledExecutor extends AbstractDelayQueueScheduledExecutor {
+    private final ThreadFactory taskThreadFactory;
+    private final Thread timer;
+    // 正在执行的任务的线程，shutdownNow 时中断
+    private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+    // 已经交给线程但还没有执行完的任务数，包括线程还没开始运行的
+    private final AtomicInteger active = new AtomicInteger();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile boolean timerExited;
+
+    public VirtualThreadScheduledExecutor() {
+        this(VirtualThreads.isSupported() ? VirtualThreads.factory() : platformThreadFactory());
+    }
+
+    /**
+     * @param taskThreadFactory 每次执行任务都调用一次 newThread
+     */
+    public VirtualThreadScheduledExecutor(ThreadFactory taskThreadFactory) {
+        super(new DelayQueue<>());
+        this.taskThreadFactory = taskThreadFactory;
+        this.timer = new Thread(this::timerLoop, "virtual-scheduler-timer");
+        timer.start();
+    }
+
+    static ThreadFactory platformThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return r -> new Thread(r, "scheduled-task-" + count.incrementAndGet());
+    }
+
+    public boolean usesVirtualThreads() {
+        return VirtualThreads.isSupported() && taskThreadFactory == VirtualThreads.factory();
+    }
+
+    private void timerLoop() {
+        try {
+            RunnableScheduledFuture<?> task;
+            while ((task = takeTask()) != null) {
+                dispatch(task);
+            }
+        } finally {
+            timerExited = true;
+            tryTerminate();
+        }
+    }
+
+    private void dispatch(RunnableScheduledFuture<?> task) {
+        active.incrementAndGet();
+        try {
+            taskThreadFactory.newThread(() -> {
+                Thread current = Thread.currentThread();
+                running.add(current);
+                try {
+                    if (!isStopped()) {
+                        task.run();
+                    }
+                } finally {
+                    running.remove(current);
+                    active.decrementAndGet();
+                    tryTerminate();
+                }
+            }).start();
+        } catch (RuntimeException | OutOfMemoryError e) {
+            // 创建不了线程（平台线程数达到上限）时任务以异常结束，计时线程继续工作
+            active.decrementAndGet();
+            if (task instanceof ScheduledTask) {
+                ((ScheduledTask<?>) task).fail(e);
+            } else {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private void tryTerminate() {
+        if (timerExited && active.get() == 0) {
+            terminated.countDown();
+        }
+    }
+
+    @Override
+    protected void onShutdown() {
+        timer.interrupt();
+    }
+
+    @Override
+    protected void onShutdownNow() {
+        timer.interrupt();
+        for (Thread thread : running) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    public static void main(String[] args) throws Exception {
+        VirtualThreadScheduledExecutor executor = new VirtualThreadScheduledExecutor();
+        System.out.println("虚拟线程：" + executor.usesVirtualThreads());
+        long start = System.nanoTime();
+        // 10 个任务同时阻塞 200ms，它们都在自己的线程里阻塞，后面的任务不受影响
+        for (int i = 0; i < 10; i++) {
+            executor.schedule(() -> {
+                Thread.sleep(200);
+                return null;
+            }, 10, TimeUnit.MILLISECONDS);
+        }
+        ScheduledFuture<String> future = executor.schedule(() -> "Hello " + Thread.currentThread(), 50,
+                TimeUnit.MILLISECONDS);
+        System.out.println(future.get() + "：" + (System.nanoTime() - start) / 1_000_000 + "ms");
+        ScheduledFuture<?> blocked = executor.schedule(() -> {
+            Thread.sleep(10_000);
+            return null;
+        }, 0, TimeUnit.MILLISECONDS);
+        Thread.sleep(50);
+        System.out.println("取消正在阻塞的任务：" + blocked.cancel(true));
+        executor.shutdown();
+        System.out.println("终止：" + executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,63 @@
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程（JDK 21 正式加入）的入口
+ *
+ * 通过反射查找 Thread.ofVirtual 和 Executors.newVirtualThreadPerTaskExecutor，
+ * 所以这里的代码在 JDK 17 上也能编译运行，只是 isSupported() 返回 false。
+ */
+public class VirtualThreads {
+
+    private static final ThreadFactory FACTORY = lookupFactory();
+
+    private static ThreadFactory lookupFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static boolean isSupported() {
+        return FACTORY != null;
+    }
+
+    /**
+     * 创建虚拟线程的 ThreadFactory，每次 newThread 都返回一个新的虚拟线程
+     */
+    public static ThreadFactory factory() {
+        if (FACTORY == null) {
+            throw new UnsupportedOperationException("virtual threads require JDK 21+, running on "
+                    + System.getProperty("java.version"));
+        }
+        return FACTORY;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的 ExecutorService
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        factory();
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException(e);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("java.version: " + System.getProperty("java.version") + "，支持虚拟线程: " + isSupported());
+        if (isSupported()) {
+            Thread thread = factory().newThread(() -> System.out.println("运行在 " + Thread.currentThread()));
+            thread.start();
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方法和 java.util.Timer 相同的定时器，底层是 TimingWheelTimer，SecheduleExample01 中的 Timer 可以换成它。
+ *
+ * 和 Timer 一样，同一个 TimerTask 只能安排一次，再次安排时抛出 IllegalStateException。和 Timer 的区别：
+ *   任务在线程池中执行，一个任务执行得慢或者抛出异常不会影响其他任务；
+ *   TimerTask.cancel() 只修改 TimerTask 内部的状态，外面无法得知，所以在这里不起作用，
+ *   包括任务在 run 中取消自己，周期任务会一直执行下去。必须用 schedule 返回的 Timeout 取消任务；
+ *   scheduledExecutionTime() 也不可用。所以不能不加修改地替换使用了 TimerTask.cancel() 的代码。
+ */
+public class WheelTimer {
+    private final TimingWheelTimer timer;
+    // 安排过的任务，用弱引用保存，任务结束后可以被回收
+    private final Set<TimerTask> scheduled =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    public WheelTimer() {
+        this(new TimingWheelTimer());
+    }
+
+    public WheelTimer(TimingWheelTimer timer) {
+        this.timer = timer;
+    }
+
+    public TimingWheelTimer.Timeout schedule(TimerTask task, long delay) {
+        return schedule(task, delay, 0, false);
+    }
+
+    public TimingWheelTimer.Timeout schedule(TimerTask task, Date time) {
+        return schedule(task, delayOf(time), 0, false);
+    }
+
+    /**
+     * 固定延迟，和 Timer 一样下一次执行的时间以这一次实际执行的时间为准
+     */
+    public TimingWheelTimer.Timeout schedule(TimerTask task, long delay, long period) {
+        checkPeriod(period);
+        return schedule(task, delay, period, false);
+    }
+
+    public TimingWheelTimer.Timeout schedule(TimerTask task, Date firstTime, long period) {
+        checkPeriod(period);
+        return schedule(task, delayOf(firstTime), period, false);
+    }
+
+    public TimingWheelTimer.Timeout scheduleAtFixedRate(TimerTask task, long delay, long period) {
+        checkPeriod(period);
+        return schedule(task, delay, period, true);
+    }
+
+    public TimingWheelTimer.Timeout scheduleAtFixedRate(TimerTask task, Date firstTime, long period) {
+        checkPeriod(period);
+        return schedule(task, delayOf(firstTime), period, true);
+    }
+
+    private TimingWheelTimer.Timeout schedule(TimerTask task, long delay, long period, boolean fixedRate) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Negative delay.");
+        }
+        if (!scheduled.add(task)) {
+            throw new IllegalStateException("Task already scheduled or cancelled");
+        }
+        return timer.schedule(task, delay, period, fixedRate, TimeUnit.MILLISECONDS);
+    }
+
+    private static long delayOf(Date time) {
+        if (time.getTime() < 0) {
+            throw new IllegalArgumentException("Negative time.");
+        }
+        return Math.max(0, time.getTime() - System.currentTimeMillis());
+    }
+
+    private static void checkPeriod(long period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Non-positive period.");
+        }
+    }
+
+    public void cancel() {
+        timer.stop();
+    }
+
+    /**
+     * 取消的任务已经从时间轮中摘除，不需要清理，总是返回 0
+     */
+    public int purge() {
+        return 0;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // SecheduleExample01 中的任务，换成 WheelTimer
+        WheelTimer timer = new WheelTimer();
+        System.out.println("现在的时间是: " + java.time.LocalDateTime.now());
+        timer.schedule(new SecheduleExample01.LongRunningTask(), 1000);
+        TimingWheelTimer.Timeout fixedDelay = timer.schedule(new SecheduleExample01.FixedDelayTask(), 100, 1000);
+        Thread.sleep(3500);
+        fixedDelay.cancel();
+        timer.cancel();
+    }
+}
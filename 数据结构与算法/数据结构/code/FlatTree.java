@@ -0,0 +1,239 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 用数组保存的二叉树，作为 TreeNode 的另一种表示
+ *
+ * 每个结点占 3 个 int：val、左孩子的下标、右孩子的下标，没有孩子时下标为 -1。
+ * 结点按照前序遍历的顺序编号，根结点的下标为 0，左孩子总是紧跟在父结点的后面，
+ * 所以前序遍历就是顺序扫描，其他遍历也大多访问相邻的内存。
+ *
+ * 一个 TreeNode 对象在开启压缩指针的 64 位 JVM 上占 24 字节，这里每个结点只占 12 字节，
+ * 也不需要在堆上分散的对象之间跳转。数据可以放在堆上的 int[] 中（onHeap），
+ * 也可以放在堆外的 ByteBuffer 中（offHeap），堆外的树不占用 Java 堆，也不会被 GC 扫描。
+ */
+public abstract class FlatTree {
+    static final int NONE = -1;
+
+    protected final int size;
+
+    FlatTree(int size) {
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int root() {
+        return size == 0 ? NONE : 0;
+    }
+
+    public abstract int val(int node);
+
+    public abstract int left(int node);
+
+    public abstract int right(int node);
+
+    // 保存结点数据占用的字节数
+    public long footprintBytes() {
+        return 12L * size;
+    }
+
+    public static FlatTree onHeap(TreeNode root) {
+        int[] records = toRecords(root);
+        return new HeapFlatTree(records, records.length / 3);
+    }
+
+    public static FlatTree offHeap(TreeNode root) {
+        int[] records = toRecords(root);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(records.length * 4).order(ByteOrder.nativeOrder());
+        buffer.asIntBuffer().put(records);
+        return new DirectFlatTree(buffer, records.length / 3);
+    }
+
+    /**
+     * 按前序遍历给结点编号，不使用递归，所以退化成链表的树也不会栈溢出
+     */
+    static int[] toRecords(TreeNode root) {
+        int[] records = new int[3 * 16];
+        int size = 0;
+        if (root == null) {
+            return new int[0];
+        }
+        TreeNode[] stack = new TreeNode[16];
+        // slots[i]: stack[i] 的下标需要写入 records 的哪个位置
+        int[] slots = new int[16];
+        int top = 0;
+        stack[top] = root;
+        slots[top++] = -1;
+        while (top > 0) {
+            TreeNode node = stack[--top];
+            int slot = slots[top];
+            stack[top] = null;
+            if (3 * size + 3 > records.length) {
+                records = Arrays.copyOf(records, records.length * 2);
+            }
+            int index = size++;
+            if (slot >= 0) {
+                records[slot] = index;
+            }
+            records[3 * index] = node.val;
+            records[3 * index + 1] = NONE;
+            records[3 * index + 2] = NONE;
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            if (node.right != null) {
+                stack[top] = node.right;
+                slots[top++] = 3 * index + 2;
+            }
+            if (node.left != null) {
+                stack[top] = node.left;
+                slots[top++] = 3 * index + 1;
+            }
+        }
+        return Arrays.copyOf(records, 3 * size);
+    }
+
+    public TreeNode toTreeNode() {
+        if (size == 0) {
+            return null;
+        }
+        TreeNode[] nodes = new TreeNode[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = new TreeNode(val(i));
+        }
+        for (int i = 0; i < size; i++) {
+            if (left(i) != NONE) {
+                nodes[i].left = nodes[left(i)];
+            }
+            if (right(i) != NONE) {
+                nodes[i].right = nodes[right(i)];
+            }
+        }
+        return nodes[0];
+    }
+
+    /**
+     * 结点按前序编号，前序遍历就是按下标顺序输出
+     */
+    public void preorder(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(val(i));
+        }
+    }
+
+    public void inorder(IntConsumer action) {
+        int[] stack = new int[64];
+        int top = 0;
+        int node = root();
+        while (top > 0 || node != NONE) {
+            while (node != NONE) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = node;
+                node = left(node);
+            }
+            node = stack[--top];
+            action.accept(val(node));
+            node = right(node);
+        }
+    }
+
+    public void postorder(IntConsumer action) {
+        int[] stack = new int[64];
+        int top = 0;
+        int node = root();
+        int prev = NONE;
+        while (top > 0 || node != NONE) {
+            while (node != NONE) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = node;
+                node = left(node);
+            }
+            int peek = stack[top - 1];
+            if (right(peek) != NONE && right(peek) != prev) {
+                node = right(peek);
+            } else {
+                top--;
+                action.accept(val(peek));
+                prev = peek;
+            }
+        }
+    }
+
+    static final class HeapFlatTree extends FlatTree {
+        private final int[] records;
+
+        HeapFlatTree(int[] records, int size) {
+            super(size);
+            this.records = records;
+        }
+
+        @Override
+        public int val(int node) {
+            return records[3 * node];
+        }
+
+        @Override
+        public int left(int node) {
+            return records[3 * node + 1];
+        }
+
+        @Override
+        public int right(int node) {
+            return records[3 * node + 2];
+        }
+    }
+
+    static final class DirectFlatTree extends FlatTree {
+        private final ByteBuffer buffer;
+
+        DirectFlatTree(ByteBuffer buffer, int size) {
+            super(size);
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int val(int node) {
+            return buffer.getInt(12 * node);
+        }
+
+        @Override
+        public int left(int node) {
+            return buffer.getInt(12 * node + 4);
+        }
+
+        @Override
+        public int right(int node) {
+            return buffer.getInt(12 * node + 8);
+        }
+    }
+
+    public static void main(String[] args) {
+        TreeNode root = new TreeNode(1);
+        root.left = new TreeNode(2);
+        root.right = new TreeNode(3);
+        root.left.right = new TreeNode(4);
+        FlatTree tree = FlatTree.offHeap(root);
+        IntList res = new IntList();
+        tree.preorder(res);
+        System.out.println("前序：" + res);
+        res.clear();
+        tree.inorder(res);
+        System.out.println("中序：" + res);
+        res.clear();
+        tree.postorder(res);
+        System.out.println("后序：" + res);
+        System.out.println("转换回 TreeNode 后的中序：" + new InorderTraversal().inorderTraversal(tree.toTreeNode()));
+        System.out.println("100 万个结点占用：" + FlatTree.onHeap(TreeData.balanced(1_000_000)).footprintBytes() / 1024
+                + " KB，TreeNode 约 " + 24L * 1_000_000 / 1024 + " KB");
+    }
+}
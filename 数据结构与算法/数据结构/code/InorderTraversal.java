@@ -1,6 +1,10 @@
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 /**
  * 中序遍历
+ * inOrder 递归，inorderTraversal2 一路压入左孩子再弹出，inorderTraversal3 把栈换成 ArrayDeque，
+ * morrisInorderTraversal 借用前驱结点的空 right 指针。传入 IntConsumer 的重载直接处理结点的值，不收集 List。
  * @Auther mengchen
  * @Date 2019-09-05 12:34:35
  */
@@ -11,17 +15,30 @@ public class InorderTraversal {
         return res;
     }
 
+    public void inorderTraversal(TreeNode root, IntConsumer action) {
+        inOrder(root, action);
+    }
+
     public void inOrder(TreeNode root, List<Integer> res) {
+        inOrder(root, res::add);
+    }
+
+    public void inOrder(TreeNode root, IntConsumer action) {
         if (root == null) {
             return;
         }
-        inOrder(root.left, res);
-        res.add(root.val);
-        inOrder(root.right, res);
+        inOrder(root.left, action);
+        action.accept(root.val);
+        inOrder(root.right, action);
     }
 
     public List<Integer> inorderTraversal2(TreeNode root) {
         List<Integer> res = new ArrayList<>();
+        inorderTraversal2(root, res::add);
+        return res;
+    }
+
+    public void inorderTraversal2(TreeNode root, IntConsumer action) {
         LinkedList<TreeNode> stack = new LinkedList<>();
         while (!stack.isEmpty() || root != null) {
             while (root != null) {
@@ -29,18 +46,78 @@ public class InorderTraversal {
                 root = root.left;
             }
             root = stack.pop();
-            res.add(root.val);
+            action.accept(root.val);
             root = root.right;
         }
+    }
+
+    public List<Integer> inorderTraversal3(TreeNode root) {
+        List<Integer> res = new ArrayList<>();
+        inorderTraversal3(root, res::add);
         return res;
     }
-}
 
-class TreeNode {
-    int val;
-    TreeNode left;
-    TreeNode right;
-    TreeNode(int x) {
-        this.val = x;
+    /**
+     * 用 ArrayDeque 作为栈，入栈时不需要像 LinkedList 那样为每个元素创建结点
+     */
+    public void inorderTraversal3(TreeNode root, IntConsumer action) {
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+        while (!stack.isEmpty() || root != null) {
+            while (root != null) {
+                stack.push(root);
+                root = root.left;
+            }
+            root = stack.pop();
+            action.accept(root.val);
+            root = root.right;
+        }
+    }
+
+    public List<Integer> morrisInorderTraversal(TreeNode root) {
+        List<Integer> res = new ArrayList<>();
+        morrisInorderTraversal(root, res::add);
+        return res;
     }
-}
\ No newline at end of file
+
+    /**
+     * Morris 遍历，不使用栈，额外空间 O(1)
+     * 当前结点有左子树时，把左子树中最右边的结点（中序遍历的前驱）的 right 指向当前结点，
+     * 这样遍历完左子树后可以沿着这个指针回到当前结点；第二次回到当前结点时再把指针恢复为 null。
+     */
+    public void morrisInorderTraversal(TreeNode root, IntConsumer action) {
+        TreeNode cur = root;
+        while (cur != null) {
+            if (cur.left == null) {
+                action.accept(cur.val);
+                cur = cur.right;
+                continue;
+            }
+            TreeNode pre = cur.left;
+            while (pre.right != null && pre.right != cur) {
+                pre = pre.right;
+            }
+            if (pre.right == null) {
+                pre.right = cur;
+                cur = cur.left;
+            } else {
+                pre.right = null;
+                action.accept(cur.val);
+                cur = cur.right;
+            }
+        }
+    }
+
+    /**
+     * 惰性的中序遍历，每次调用 nextInt 才前进到下一个结点
+     */
+    public PrimitiveIterator.OfInt inorderIterator(TreeNode root) {
+        return TreeSpliterator.iterator(root, TreeSpliterator.Order.IN);
+    }
+
+    /**
+     * 中序遍历的 IntStream，parallel 为 true 时按子树拆分并行遍历
+     */
+    public IntStream inorderStream(TreeNode root, boolean parallel) {
+        return TreeSpliterator.stream(root, TreeSpliterator.Order.IN, parallel);
+    }
+}
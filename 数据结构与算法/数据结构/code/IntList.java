@@ -0,0 +1,55 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 可以自动扩容的 int 数组，用来接收遍历的结果，避免 List<Integer> 的装箱。
+ * 调用 clear 后可以重复使用，容量不会缩小。
+ */
+public class IntList implements IntConsumer {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    @Override
+    public void accept(int value) {
+        add(value);
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,267 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 二叉树的层序遍历（广度优先）
+ *
+ * 除了常规的队列写法，还有一个在 FlatTree 上并行遍历的版本：当前层和下一层的结点下标分别保存在
+ * 两个 int 数组中，每层遍历完交换，不需要队列。一层的结点很多时，把它分成若干段交给 ForkJoinPool：
+ * 先并行地取出每段结点的值并统计每段有多少个孩子，算出每段孩子在下一层中的起始位置，
+ * 再并行地把孩子写到下一层，这样下一层结点的顺序和串行遍历完全相同。
+ */
+public class LevelOrderTraversal {
+
+    // 一层的结点数超过它时才并行处理，每段也至少有这么多结点
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * 每遍历完一层调用一次，values[0, count) 为这一层从左到右的值。
+     * values 会被下一层重复使用，需要保存时要复制一份。
+     */
+    public interface LevelVisitor {
+        void visitLevel(int depth, int[] values, int count);
+    }
+
+    public List<List<Integer>> levelOrder(TreeNode root) {
+        List<List<Integer>> res = new ArrayList<>();
+        levelOrder(root, (depth, values, count) -> {
+            List<Integer> level = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                level.add(values[i]);
+            }
+            res.add(level);
+        });
+        return res;
+    }
+
+    /**
+     * 用 ArrayDeque 作为队列的串行版本
+     */
+    public void levelOrder(TreeNode root, LevelVisitor visitor) {
+        if (root == null) {
+            return;
+        }
+        ArrayDeque<TreeNode> queue = new ArrayDeque<>();
+        int[] buffer = new int[16];
+        queue.add(root);
+        for (int depth = 0; !queue.isEmpty(); depth++) {
+            int count = queue.size();
+            if (buffer.length < count) {
+                buffer = new int[Math.max(count, buffer.length * 2)];
+            }
+            for (int i = 0; i < count; i++) {
+                TreeNode node = queue.poll();
+                buffer[i] = node.val;
+                if (node.left != null) {
+                    queue.add(node.left);
+                }
+                if (node.right != null) {
+                    queue.add(node.right);
+                }
+            }
+            visitor.visitLevel(depth, buffer, count);
+        }
+    }
+
+    /**
+     * FlatTree 上的串行版本，用两个数组交替保存当前层和下一层
+     */
+    public void levelOrder(FlatTree tree, LevelVisitor visitor) {
+        if (tree.size() == 0) {
+            return;
+        }
+        int[] current = new int[16];
+        int[] next = new int[16];
+        int[] values = new int[16];
+        current[0] = tree.root();
+        int count = 1;
+        for (int depth = 0; count > 0; depth++) {
+            if (values.length < count) {
+                values = new int[count];
+            }
+            if (next.length < 2 * count) {
+                next = new int[2 * count];
+            }
+            int nextCount = step(tree, current, count, next, values);
+            visitor.visitLevel(depth, values, count);
+            int[] t = current;
+            current = next;
+            next = t;
+            count = nextCount;
+        }
+    }
+
+    // 遍历一层，把值写到 values，孩子写到 next，返回下一层的结点数
+    private static int step(FlatTree tree, int[] current, int count, int[] next, int[] values) {
+        int nextCount = 0;
+        for (int i = 0; i < count; i++) {
+            int node = current[i];
+            values[i] = tree.val(node);
+            if (tree.left(node) != FlatTree.NONE) {
+                next[nextCount++] = tree.left(node);
+            }
+            if (tree.right(node) != FlatTree.NONE) {
+                next[nextCount++] = tree.right(node);
+            }
+        }
+        return nextCount;
+    }
+
+    public void parallelLevelOrder(FlatTree tree, LevelVisitor visitor) {
+        parallelLevelOrder(tree, visitor, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * FlatTree 上的并行版本，每层内部并行，层与层之间按顺序进行，visitor 总是在调用线程中按层调用
+     */
+    public void parallelLevelOrder(FlatTree tree, LevelVisitor visitor, ForkJoinPool pool) {
+        if (tree.size() == 0) {
+            return;
+        }
+        int[] current = new int[16];
+        int[] next = new int[16];
+        int[] values = new int[16];
+        // 每段的孩子数，之后改为每段孩子在下一层中的起始位置
+        int[] offsets = new int[0];
+        current[0] = tree.root();
+        int count = 1;
+        for (int depth = 0; count > 0; depth++) {
+            if (values.length < count) {
+                values = new int[count];
+            }
+            if (next.length < 2 * count) {
+                next = new int[2 * count];
+            }
+            int chunks = Math.min(count / PARALLEL_THRESHOLD, pool.getParallelism() * 4);
+            int nextCount;
+            if (chunks <= 1) {
+                nextCount = step(tree, current, count, next, values);
+            } else {
+                if (offsets.length < chunks + 1) {
+                    offsets = new int[chunks + 1];
+                }
+                Level level = new Level(tree, current, count, next, values, offsets, chunks);
+                pool.invoke(new ChunkTask(level, 0, chunks, true));
+                nextCount = level.prefixSum();
+                pool.invoke(new ChunkTask(level, 0, chunks, false));
+            }
+            visitor.visitLevel(depth, values, count);
+            int[] t = current;
+            current = next;
+            next = t;
+            count = nextCount;
+        }
+    }
+
+    /**
+     * 一层的数据，第 k 段为 current[from(k), from(k + 1))
+     */
+    static class Level {
+        final FlatTree tree;
+        final int[] current;
+        final int count;
+        final int[] next;
+        final int[] values;
+        final int[] offsets;
+        final int chunks;
+
+        Level(FlatTree tree, int[] current, int count, int[] next, int[] values, int[] offsets, int chunks) {
+            this.tree = tree;
+            this.current = current;
+            this.count = count;
+            this.next = next;
+            this.values = values;
+            this.offsets = offsets;
+            this.chunks = chunks;
+        }
+
+        int from(int chunk) {
+            return (int) ((long) count * chunk / chunks);
+        }
+
+        // 取出这一段结点的值，统计孩子的个数
+        void collect(int chunk) {
+            int children = 0;
+            for (int i = from(chunk), end = from(chunk + 1); i < end; i++) {
+                int node = current[i];
+                values[i] = tree.val(node);
+                if (tree.left(node) != FlatTree.NONE) {
+                    children++;
+                }
+                if (tree.right(node) != FlatTree.NONE) {
+                    children++;
+                }
+            }
+            offsets[chunk + 1] = children;
+        }
+
+        // 返回下一层的结点数
+        int prefixSum() {
+            offsets[0] = 0;
+            for (int k = 0; k < chunks; k++) {
+                offsets[k + 1] += offsets[k];
+            }
+            return offsets[chunks];
+        }
+
+        // 把这一段结点的孩子写到下一层
+        void expand(int chunk) {
+            int pos = offsets[chunk];
+            for (int i = from(chunk), end = from(chunk + 1); i < end; i++) {
+                int node = current[i];
+                if (tree.left(node) != FlatTree.NONE) {
+                    next[pos++] = tree.left(node);
+                }
+                if (tree.right(node) != FlatTree.NONE) {
+                    next[pos++] = tree.right(node);
+                }
+            }
+        }
+    }
+
+    static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Level level;
+        final int from;
+        final int to;
+        final boolean collect;
+
+        ChunkTask(Level level, int from, int to, boolean collect) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.collect = collect;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (collect) {
+                    level.collect(from);
+                } else {
+                    level.expand(from);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(level, from, mid, collect), new ChunkTask(level, mid, to, collect));
+        }
+    }
+
+    public static void main(String[] args) {
+        TreeNode root = new TreeNode(3);
+        root.left = new TreeNode(9);
+        root.right = new TreeNode(20);
+        root.right.left = new TreeNode(15);
+        root.right.right = new TreeNode(7);
+        LevelOrderTraversal traversal = new LevelOrderTraversal();
+        System.out.println(traversal.levelOrder(root));
+        traversal.parallelLevelOrder(FlatTree.onHeap(root),
+                (depth, values, count) -> System.out.println("第 " + depth + " 层：" + Arrays.toString(Arrays.copyOf(values, count))));
+    }
+}
@@ -1,11 +1,16 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
-
-import javax.swing.tree.TreeNode;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * 二叉树的后序遍历 
+ * 迭代写法都用 prev 记录上一个输出的结点来判断右子树是否已经遍历完，所以可以边遍历边交给 IntConsumer，
+ * 不需要先按 根-右-左 收集再反转；morrisPostorderTraversal 逆序输出向右的路径，额外空间 O(1)。
  * @Auther mengchen
  * @Date 2019-09-05 18:49:24
  */
@@ -16,41 +21,135 @@ public class PostOrderTraversal {
         return res;
     }
 
+    public void postorderTraversal(TreeNode root, IntConsumer action) {
+        postOrder(root, action);
+    }
+
     public void postOrder(TreeNode root, List<Integer> res) {
+        postOrder(root, res::add);
+    }
+
+    public void postOrder(TreeNode root, IntConsumer action) {
         if (root == null) {
             return;
         }
-        postOrder(root.left, res);
-        postOrder(root.right, res);
-        res.add(root.val);
+        postOrder(root.left, action);
+        postOrder(root.right, action);
+        action.accept(root.val);
     }
 
-    public List<Integer> postorderTraversal(TreeNode root) {
-        LinkedList<Integer> res = new LinkedList<>();
-        if (root == null) {
-            return res;
-        }
-        LinkedList<TreeNode> stack = new LinkedList<>();
-        stack.add(root);
-        while (!stack.isEmpty()) {
-            TreeNode node = stack.pollLast();
-            res.addFirst(node.val);
-            if (node.left != null) {
-                stack.add(node.left);
+    public List<Integer> postorderTraversal2(TreeNode root) {
+        List<Integer> res = new ArrayList<>();
+        postorderTraversal2(root, res::add);
+        return res;
+    }
+
+    /**
+     * 按 根-右-左 的顺序遍历再反转的写法需要先保存全部结果，没法直接交给 action，
+     * 这里改为记录上一个输出的结点：栈顶结点的右子树为空或者刚刚输出过时，才输出栈顶结点。
+     */
+    public void postorderTraversal2(TreeNode root, IntConsumer action) {
+        postorder(root, new LinkedList<>(), action);
+    }
+
+    public List<Integer> postorderTraversal3(TreeNode root) {
+        List<Integer> res = new ArrayList<>();
+        postorderTraversal3(root, res::add);
+        return res;
+    }
+
+    /**
+     * 用 ArrayDeque 作为栈
+     */
+    public void postorderTraversal3(TreeNode root, IntConsumer action) {
+        postorder(root, new ArrayDeque<>(), action);
+    }
+
+    private void postorder(TreeNode root, Deque<TreeNode> stack, IntConsumer action) {
+        TreeNode prev = null;
+        while (root != null || !stack.isEmpty()) {
+            while (root != null) {
+                stack.push(root);
+                root = root.left;
             }
-            if (node.right != null) {
-                stack.add(node.right);
+            TreeNode node = stack.peek();
+            if (node.right != null && node.right != prev) {
+                root = node.right;
+            } else {
+                stack.pop();
+                action.accept(node.val);
+                prev = node;
             }
         }
+    }
+
+    public List<Integer> morrisPostorderTraversal(TreeNode root) {
+        List<Integer> res = new ArrayList<>();
+        morrisPostorderTraversal(root, res::add);
         return res;
     }
-}
 
-class TreeNode {
-    int val;
-    TreeNode left;
-    TreeNode right;
-    TreeNode(int x) {
-        this.val = x;
+    /**
+     * Morris 遍历
+     * 在根结点上面加一个虚拟结点，把根作为它的左子树。第二次回到某个结点时，
+     * 逆序输出它的左孩子到前驱结点这条向右的路径。逆序输出时把路径上的 right 指针反转，
+     * 输出后再反转回来，所以仍然只需要 O(1) 的额外空间。
+     */
+    public void morrisPostorderTraversal(TreeNode root, IntConsumer action) {
+        TreeNode dummy = new TreeNode(0);
+        dummy.left = root;
+        TreeNode cur = dummy;
+        while (cur != null) {
+            if (cur.left == null) {
+                cur = cur.right;
+                continue;
+            }
+            TreeNode pre = cur.left;
+            while (pre.right != null && pre.right != cur) {
+                pre = pre.right;
+            }
+            if (pre.right == null) {
+                pre.right = cur;
+                cur = cur.left;
+            } else {
+                pre.right = null;
+                visitReversePath(cur.left, pre, action);
+                cur = cur.right;
+            }
+        }
     }
-}
\ No newline at end of file
+
+    // 逆序输出 from 沿 right 指针到 to 的路径，调用时 to.right 已经是 null
+    private void visitReversePath(TreeNode from, TreeNode to, IntConsumer action) {
+        reverse(from);
+        for (TreeNode node = to; node != null; node = node.right) {
+            action.accept(node.val);
+        }
+        reverse(to);
+    }
+
+    // 把从 head 开始沿 right 指针、以 null 结尾的路径反转，和反转链表相同
+    private void reverse(TreeNode head) {
+        TreeNode prev = null;
+        while (head != null) {
+            TreeNode next = head.right;
+            head.right = prev;
+            prev = head;
+            head = next;
+        }
+    }
+
+    /**
+     * 惰性的后序遍历，每次调用 nextInt 才前进到下一个结点
+     */
+    public PrimitiveIterator.OfInt postorderIterator(TreeNode root) {
+        return TreeSpliterator.iterator(root, TreeSpliterator.Order.POST);
+    }
+
+    /**
+     * 后序遍历的 IntStream，parallel 为 true 时按子树拆分并行遍历
+     */
+    public IntStream postorderStream(TreeNode root, boolean parallel) {
+        return TreeSpliterator.stream(root, TreeSpliterator.Order.POST, parallel);
+    }
+}
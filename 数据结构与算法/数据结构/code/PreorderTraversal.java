@@ -1,53 +1,135 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 /**
  * 树的前序遍历
+ * preorderTraversal2/3 出栈时输出，先压右孩子再压左孩子；morrisPreorderTraversal 第一次到达结点时输出。
+ * 另有惰性的 preorderIterator 和可以并行的 preorderStream。
  * @Auther mengchen
  * @Date 2019-09-05 10:56:39
  */
 public class PreorderTraversal {
     public List<Integer> preorderTraversal1(TreeNode root) {
-        List<Integer> res = new ArrayList();
+        List<Integer> res = new ArrayList<>();
         preOrder(root, res);
         return res;
     }
 
+    public void preorderTraversal1(TreeNode root, IntConsumer action) {
+        preOrder(root, action);
+    }
+
     public void preOrder(TreeNode root, List<Integer> res) {
+        preOrder(root, res::add);
+    }
+
+    public void preOrder(TreeNode root, IntConsumer action) {
         if (root == null) {
             return;
         }
-        res.add(root.val);
-        preOrder(root.left, res);
-        preOrder(root.right, res);
+        action.accept(root.val);
+        preOrder(root.left, action);
+        preOrder(root.right, action);
     }
 
     public List<Integer> preorderTraversal2(TreeNode root) {
-        LinkedList<TreeNode> stack = new LinkedList<>();
         List<Integer> res = new ArrayList<>();
+        preorderTraversal2(root, res::add);
+        return res;
+    }
+
+    public void preorderTraversal2(TreeNode root, IntConsumer action) {
+        LinkedList<TreeNode> stack = new LinkedList<>();
         if (root == null) {
-            return res;
+            return;
         }
         stack.add(root);
         while (!stack.isEmpty()) {
             TreeNode node = stack.pollLast();
-            res.add(node.val);
+            action.accept(node.val);
             if (node.right != null) {
                 stack.add(node.right);
             }
             if (node.left != null) {
-                stack.add(node.right);
+                stack.add(node.left);
             }
         }
+    }
+
+    public List<Integer> preorderTraversal3(TreeNode root) {
+        List<Integer> res = new ArrayList<>();
+        preorderTraversal3(root, res::add);
         return res;
     }
-}
 
-class TreeNode {
-    int val;
-    TreeNode left;
-    TreeNode right;
-    TreeNode(int x) {
-        this.val = x;
+    /**
+     * 用 ArrayDeque 作为栈
+     */
+    public void preorderTraversal3(TreeNode root, IntConsumer action) {
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+        if (root == null) {
+            return;
+        }
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            TreeNode node = stack.pop();
+            action.accept(node.val);
+            if (node.right != null) {
+                stack.push(node.right);
+            }
+            if (node.left != null) {
+                stack.push(node.left);
+            }
+        }
+    }
+
+    public List<Integer> morrisPreorderTraversal(TreeNode root) {
+        List<Integer> res = new ArrayList<>();
+        morrisPreorderTraversal(root, res::add);
+        return res;
+    }
+
+    /**
+     * Morris 遍历，和中序遍历的区别只是在第一次到达结点时就输出
+     */
+    public void morrisPreorderTraversal(TreeNode root, IntConsumer action) {
+        TreeNode cur = root;
+        while (cur != null) {
+            if (cur.left == null) {
+                action.accept(cur.val);
+                cur = cur.right;
+                continue;
+            }
+            TreeNode pre = cur.left;
+            while (pre.right != null && pre.right != cur) {
+                pre = pre.right;
+            }
+            if (pre.right == null) {
+                action.accept(cur.val);
+                pre.right = cur;
+                cur = cur.left;
+            } else {
+                pre.right = null;
+                cur = cur.right;
+            }
+        }
+    }
+
+    /**
+     * 惰性的前序遍历，每次调用 nextInt 才前进到下一个结点
+     */
+    public PrimitiveIterator.OfInt preorderIterator(TreeNode root) {
+        return TreeSpliterator.iterator(root, TreeSpliterator.Order.PRE);
     }
-}
\ No newline at end of file
+
+    /**
+     * 前序遍历的 IntStream，parallel 为 true 时按子树拆分并行遍历
+     */
+    public IntStream preorderStream(TreeNode root, boolean parallel) {
+        return TreeSpliterator.stream(root, TreeSpliterator.Order.PRE, parallel);
+    }
+}
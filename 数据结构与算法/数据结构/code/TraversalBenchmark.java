@@ -0,0 +1,231 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 二叉树遍历的性能测试：递归、LinkedList 栈、ArrayDeque 栈和 Morris 遍历，
+ * 数组表示的 FlatTree，以及串行和并行的层序遍历，分别在平衡树和退化成链表的树上测试。
+ *
+ * 运行方式：
+ *   javac *.java
+ *   java -Xss512m TraversalBenchmark [名称过滤] [规模...]
+ * 不指定规模时依次测试 1e3 ~ 1e6。递归遍历在很深的树上会栈溢出，这种情况会输出 StackOverflowError。
+ *
+ * 和贪心算法的 GreedyBenchmark 一样没有使用 JMH：先预热，再逐次调用并计时，
+ * 输出吞吐量（ops/s）、平均耗时（ns/op）和每次调用分配的字节数（B/op）。
+ */
+public class TraversalBenchmark {
+
+    static final int[] DEFAULT_SIZES = {1_000, 10_000, 100_000, 1_000_000};
+
+    static final long WARMUP_NANOS = Long.getLong("bench.warmup", 1000) * 1_000_000L;
+    static final long MEASURE_NANOS = Long.getLong("bench.measure", 2000) * 1_000_000L;
+    static final int MIN_INVOCATIONS = 5;
+
+    static volatile long sink;
+
+    static class Case {
+        final String name;
+        final ToLongFunction<TreeNode> traversal;
+
+        Case(String name, ToLongFunction<TreeNode> traversal) {
+            this.name = name;
+            this.traversal = traversal;
+        }
+    }
+
+    static List<Case> cases() {
+        PreorderTraversal pre = new PreorderTraversal();
+        InorderTraversal in = new InorderTraversal();
+        PostOrderTraversal post = new PostOrderTraversal();
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("preorder.recursive", root -> pre.preorderTraversal1(root).size()));
+        cases.add(new Case("preorder.linkedList", root -> pre.preorderTraversal2(root).size()));
+        cases.add(new Case("preorder.arrayDeque", root -> pre.preorderTraversal3(root).size()));
+        cases.add(new Case("preorder.morris", root -> pre.morrisPreorderTraversal(root).size()));
+        cases.add(new Case("inorder.recursive", root -> in.inorderTraversal(root).size()));
+        cases.add(new Case("inorder.linkedList", root -> in.inorderTraversal2(root).size()));
+        cases.add(new Case("inorder.arrayDeque", root -> in.inorderTraversal3(root).size()));
+        cases.add(new Case("inorder.morris", root -> in.morrisInorderTraversal(root).size()));
+        cases.add(new Case("postorder.recursive", root -> post.postorderTraversal(root).size()));
+        cases.add(new Case("postorder.linkedList", root -> post.postorderTraversal2(root).size()));
+        cases.add(new Case("postorder.arrayDeque", root -> post.postorderTraversal3(root).size()));
+        cases.add(new Case("postorder.morris", root -> post.morrisPostorderTraversal(root).size()));
+        // 结果写入重复使用的 IntList，不装箱
+        IntList buffer = new IntList();
+        cases.add(new Case("preorder.arrayDeque.intList", root -> {
+            buffer.clear();
+            pre.preorderTraversal3(root, buffer);
+            return buffer.size();
+        }));
+        cases.add(new Case("preorder.morris.intList", root -> {
+            buffer.clear();
+            pre.morrisPreorderTraversal(root, buffer);
+            return buffer.size();
+        }));
+        cases.add(new Case("inorder.arrayDeque.intList", root -> {
+            buffer.clear();
+            in.inorderTraversal3(root, buffer);
+            return buffer.size();
+        }));
+        cases.add(new Case("inorder.morris.intList", root -> {
+            buffer.clear();
+            in.morrisInorderTraversal(root, buffer);
+            return buffer.size();
+        }));
+        cases.add(new Case("postorder.arrayDeque.intList", root -> {
+            buffer.clear();
+            post.postorderTraversal3(root, buffer);
+            return buffer.size();
+        }));
+        cases.add(new Case("postorder.morris.intList", root -> {
+            buffer.clear();
+            post.morrisPostorderTraversal(root, buffer);
+            return buffer.size();
+        }));
+        // 数组表示的树，在堆上和堆外各测一次
+        cases.add(new Case("flat.preorder", new Converted<>(FlatTree::onHeap, tree -> {
+            buffer.clear();
+            tree.preorder(buffer);
+            return buffer.size();
+        })));
+        cases.add(new Case("flat.inorder", new Converted<>(FlatTree::onHeap, tree -> {
+            buffer.clear();
+            tree.inorder(buffer);
+            return buffer.size();
+        })));
+        cases.add(new Case("flat.postorder", new Converted<>(FlatTree::onHeap, tree -> {
+            buffer.clear();
+            tree.postorder(buffer);
+            return buffer.size();
+        })));
+        cases.add(new Case("flat.offHeap.inorder", new Converted<>(FlatTree::offHeap, tree -> {
+            buffer.clear();
+            tree.inorder(buffer);
+            return buffer.size();
+        })));
+        // 层序遍历：ArrayDeque 队列，以及 FlatTree 上的串行和并行版本，每层的回调只累加结点数
+        LevelOrderTraversal level = new LevelOrderTraversal();
+        long[] visited = new long[1];
+        LevelOrderTraversal.LevelVisitor counter = (depth, values, count) -> visited[0] += count;
+        cases.add(new Case("levelOrder.arrayDeque", root -> {
+            visited[0] = 0;
+            level.levelOrder(root, counter);
+            return visited[0];
+        }));
+        cases.add(new Case("levelOrder.flat", new Converted<>(FlatTree::onHeap, tree -> {
+            visited[0] = 0;
+            level.levelOrder(tree, counter);
+            return visited[0];
+        })));
+        cases.add(new Case("levelOrder.flat.parallel", new Converted<>(FlatTree::onHeap, tree -> {
+            visited[0] = 0;
+            level.parallelLevelOrder(tree, counter);
+            return visited[0];
+        })));
+        return cases;
+    }
+
+    /**
+     * 先把 TreeNode 转换成其他的表示再遍历。同一棵树只在第一次调用时转换，
+     * 第一次调用属于预热阶段，所以转换的开销不计入结果。
+     */
+    static class Converted<T> implements ToLongFunction<TreeNode> {
+        final Function<TreeNode, T> convert;
+        final ToLongFunction<T> traversal;
+        TreeNode root;
+        T converted;
+
+        Converted(Function<TreeNode, T> convert, ToLongFunction<T> traversal) {
+            this.convert = convert;
+            this.traversal = traversal;
+        }
+
+        @Override
+        public long applyAsLong(TreeNode root) {
+            if (this.root != root) {
+                this.root = root;
+                this.converted = convert.apply(root);
+            }
+            return traversal.applyAsLong(converted);
+        }
+    }
+
+    public static void main(String[] args) {
+        String filter = null;
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.matches("\\d+")) {
+                sizes.add(Integer.parseInt(arg));
+            } else {
+                filter = arg;
+            }
+        }
+        if (sizes.isEmpty()) {
+            for (int size : DEFAULT_SIZES) {
+                sizes.add(size);
+            }
+        }
+        System.out.printf("%-32s %-9s %10s %14s %14s %16s%n", "Benchmark", "shape", "size", "ops/s", "ns/op", "B/op");
+        for (Case c : cases()) {
+            if (filter != null && !c.name.contains(filter)) {
+                continue;
+            }
+            for (int size : sizes) {
+                for (String shape : new String[]{"balanced", "skewed"}) {
+                    TreeNode root = shape.equals("balanced") ? TreeData.balanced(size) : TreeData.skewed(size);
+                    try {
+                        Result r = measure(c, root);
+                        System.out.printf("%-32s %-9s %10d %14.2f %14.0f %16.1f%n", c.name, shape, size,
+                                r.opsPerSecond(), r.nanosPerOp(), r.bytesPerOp());
+                    } catch (StackOverflowError e) {
+                        System.out.printf("%-32s %-9s %10d %s%n", c.name, shape, size, "StackOverflowError");
+                    }
+                }
+            }
+        }
+    }
+
+    static class Result {
+        long invocations;
+        long nanos;
+        long bytes;
+
+        double opsPerSecond() {
+            return invocations * 1e9 / nanos;
+        }
+
+        double nanosPerOp() {
+            return (double) nanos / invocations;
+        }
+
+        double bytesPerOp() {
+            return (double) bytes / invocations;
+        }
+    }
+
+    static Result measure(Case c, TreeNode root) {
+        run(c, root, WARMUP_NANOS);
+        return run(c, root, MEASURE_NANOS);
+    }
+
+    static Result run(Case c, TreeNode root, long budget) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        Result r = new Result();
+        long deadline = System.nanoTime() + budget;
+        long result = 0;
+        while (r.invocations < MIN_INVOCATIONS || System.nanoTime() < deadline) {
+            long bytes = threads.getThreadAllocatedBytes(tid);
+            long start = System.nanoTime();
+            result += c.traversal.applyAsLong(root);
+            r.nanos += System.nanoTime() - start;
+            r.bytes += threads.getThreadAllocatedBytes(tid) - bytes;
+            r.invocations++;
+        }
+        sink = result;
+        return r;
+    }
+}
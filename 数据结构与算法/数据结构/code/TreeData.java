@@ -0,0 +1,39 @@
+import java.util.Random;
+
+/**
+ * 测试用的树，结点的值为随机数，使用固定种子保证每次生成的树相同
+ */
+class TreeData {
+
+    // 完全二叉树，按层序编号，结点 i 的左右孩子为 2i + 1 和 2i + 2
+    static TreeNode balanced(int size) {
+        Random random = new Random(size);
+        TreeNode[] nodes = new TreeNode[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = new TreeNode(random.nextInt());
+        }
+        for (int i = 0; 2 * i + 1 < size; i++) {
+            nodes[i].left = nodes[2 * i + 1];
+            if (2 * i + 2 < size) {
+                nodes[i].right = nodes[2 * i + 2];
+            }
+        }
+        return size == 0 ? null : nodes[0];
+    }
+
+    // 退化成链表的树，左右孩子随机选择，深度等于结点数
+    static TreeNode skewed(int size) {
+        Random random = new Random(size);
+        TreeNode root = null;
+        for (int i = 0; i < size; i++) {
+            TreeNode node = new TreeNode(random.nextInt());
+            if (random.nextBoolean()) {
+                node.left = root;
+            } else {
+                node.right = root;
+            }
+            root = node;
+        }
+        return root;
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 二叉树的二进制文件格式，通过内存映射读写
+ *
+ * 文件格式（小端序）：
+ *   int  magic，固定为 0x54524545（"TREE"）
+ *   int  版本号，目前为 1
+ *   long 结点个数 n
+ *   n 个结点，每个结点 12 字节：val、左孩子的下标、右孩子的下标（没有孩子为 -1）
+ * 结点的编号和排列方式和 FlatTree 相同（前序编号）。
+ *
+ * map 返回的 FlatTree 直接在映射的文件上遍历，不会创建 TreeNode，也不会把文件读进堆里，
+ * 所以几个 GB 的树也只需要很小的堆。单个 MappedByteBuffer 最大 2GB，大文件会分成多段映射。
+ */
+public class TreeFile {
+    static final int MAGIC = 0x54524545;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 12;
+    // 每段映射的结点数，每段不超过 1GB
+    static final int RECORDS_PER_SEGMENT = (1 << 30) / RECORD_BYTES;
+
+    public static void write(TreeNode root, Path path) throws IOException {
+        int size = count(root);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(8, size);
+            MappedByteBuffer[] segments = map(channel, FileChannel.MapMode.READ_WRITE, size);
+            writeRecords(root, segments);
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            header.force();
+        }
+    }
+
+    /**
+     * 映射一个树文件，返回的 FlatTree 在文件关闭之后仍然可以使用
+     */
+    public static FlatTree map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("not a tree file: " + path);
+            }
+            long size = header.getLong(8);
+            if (size > Integer.MAX_VALUE || HEADER_BYTES + size * RECORD_BYTES > channel.size()) {
+                throw new IOException("corrupted tree file: " + path + ", size " + size);
+            }
+            return new MappedFlatTree(map(channel, FileChannel.MapMode.READ_ONLY, (int) size), (int) size);
+        }
+    }
+
+    public static TreeNode read(Path path) throws IOException {
+        return map(path).toTreeNode();
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, int size)
+            throws IOException {
+        int count = (size + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT;
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long first = (long) i * RECORDS_PER_SEGMENT;
+            long records = Math.min(RECORDS_PER_SEGMENT, size - first);
+            segments[i] = channel.map(mode, HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+
+    private static int count(TreeNode root) {
+        if (root == null) {
+            return 0;
+        }
+        int count = 0;
+        TreeNode[] stack = new TreeNode[16];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            TreeNode node = stack[--top];
+            count++;
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (node.right != null) {
+                stack[top++] = node.right;
+            }
+            if (node.left != null) {
+                stack[top++] = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 和 FlatTree.toRecords 相同的前序编号，直接写到映射的文件中。
+     * 右孩子的下标要等左子树写完才知道，所以先记下它在文件中的位置，编号时再回填。
+     */
+    private static void writeRecords(TreeNode root, MappedByteBuffer[] segments) {
+        if (root == null) {
+            return;
+        }
+        TreeNode[] stack = new TreeNode[16];
+        // slots[i]: stack[i] 的下标需要回填到哪个结点的哪个字段，-1 表示根结点
+        long[] slots = new long[16];
+        int top = 0;
+        stack[top] = root;
+        slots[top++] = -1;
+        int index = 0;
+        while (top > 0) {
+            TreeNode node = stack[--top];
+            long slot = slots[top];
+            stack[top] = null;
+            if (slot >= 0) {
+                putInt(segments, (int) (slot >>> 2), (int) (slot & 3) * 4, index);
+            }
+            putInt(segments, index, 0, node.val);
+            putInt(segments, index, 4, FlatTree.NONE);
+            putInt(segments, index, 8, FlatTree.NONE);
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            if (node.right != null) {
+                stack[top] = node.right;
+                slots[top++] = ((long) index << 2) | 2;
+            }
+            if (node.left != null) {
+                stack[top] = node.left;
+                slots[top++] = ((long) index << 2) | 1;
+            }
+            index++;
+        }
+    }
+
+    private static void putInt(MappedByteBuffer[] segments, int node, int field, int value) {
+        segments[node / RECORDS_PER_SEGMENT].putInt((node % RECORDS_PER_SEGMENT) * RECORD_BYTES + field, value);
+    }
+
+    static final class MappedFlatTree extends FlatTree {
+        private final MappedByteBuffer[] segments;
+
+        MappedFlatTree(MappedByteBuffer[] segments, int size) {
+            super(size);
+            this.segments = segments;
+        }
+
+        private int get(int node, int field) {
+            return segments[node / RECORDS_PER_SEGMENT].getInt((node % RECORDS_PER_SEGMENT) * RECORD_BYTES + field);
+        }
+
+        @Override
+        public int val(int node) {
+            return get(node, 0);
+        }
+
+        @Override
+        public int left(int node) {
+            return get(node, 4);
+        }
+
+        @Override
+        public int right(int node) {
+            return get(node, 8);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = args.length > 0 ? Path.of(args[0]) : Files.createTempFile("tree", ".bin");
+        TreeNode root = TreeData.balanced(1_000_000);
+        write(root, path);
+        FlatTree tree = map(path);
+        long[] sum = new long[1];
+        tree.inorder(value -> sum[0] += value);
+        System.out.println(path + "：" + tree.size() + " 个结点，中序遍历的和为 " + sum[0]);
+        System.out.println("TreeNode 中序遍历的和为 " + new InorderTraversal().inorderStream(root, false).asLongStream().sum());
+    }
+}
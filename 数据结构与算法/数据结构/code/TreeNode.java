@@ -0,0 +1,11 @@
+/**
+ * 二叉树的结点，各个遍历共用
+ */
+class TreeNode {
+    int val;
+    TreeNode left;
+    TreeNode right;
+    TreeNode(int x) {
+        this.val = x;
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 惰性的二叉树遍历，每次只前进到下一个结点，可以只取前 k 个值或者提前结束。
+ *
+ * 用一个栈保存剩下还没有遍历的部分，栈中的每一项要么是一个结点的值，要么是一整棵子树。
+ * 取下一个值时弹出栈顶：如果是值就直接返回，如果是子树就按照遍历的顺序把它拆成
+ * 根结点的值和左右两棵子树再压回栈中。前序为 根-左-右，中序为 左-根-右，后序为 左-右-根。
+ *
+ * 拆分（trySplit）时以栈中最靠后的一棵子树为界：它之前的部分交给新的 Spliterator，
+ * 当前的 Spliterator 保留它以及之后的部分，这样并行流可以按子树把树分给多个线程。
+ */
+public class TreeSpliterator implements Spliterator.OfInt {
+
+    public enum Order {
+        PRE, IN, POST
+    }
+
+    private final Order order;
+    // 栈底为 0，栈顶为 size - 1，栈顶是下一个要遍历的部分
+    private TreeNode[] nodes;
+    // true 表示整棵子树，false 表示只有这个结点的值
+    private boolean[] subtree;
+    private int size;
+    private long estimate;
+
+    public TreeSpliterator(TreeNode root, Order order) {
+        this(order, Long.MAX_VALUE);
+        if (root != null) {
+            push(root, true);
+        }
+    }
+
+    private TreeSpliterator(Order order, long estimate) {
+        this.order = order;
+        this.estimate = estimate;
+        this.nodes = new TreeNode[16];
+        this.subtree = new boolean[16];
+    }
+
+    public static PrimitiveIterator.OfInt iterator(TreeNode root, Order order) {
+        return Spliterators.iterator(new TreeSpliterator(root, order));
+    }
+
+    public static IntStream stream(TreeNode root, Order order, boolean parallel) {
+        return StreamSupport.intStream(new TreeSpliterator(root, order), parallel);
+    }
+
+    private void push(TreeNode node, boolean isSubtree) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            subtree = Arrays.copyOf(subtree, size * 2);
+        }
+        nodes[size] = node;
+        subtree[size] = isSubtree;
+        size++;
+    }
+
+    private void pushSubtree(TreeNode node) {
+        if (node != null) {
+            push(node, true);
+        }
+    }
+
+    // 把整棵子树拆开，按遍历顺序的逆序压栈
+    private void expand(TreeNode node) {
+        switch (order) {
+            case PRE:
+                pushSubtree(node.right);
+                pushSubtree(node.left);
+                push(node, false);
+                break;
+            case IN:
+                pushSubtree(node.right);
+                push(node, false);
+                pushSubtree(node.left);
+                break;
+            default:
+                push(node, false);
+                pushSubtree(node.right);
+                pushSubtree(node.left);
+                break;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        while (size > 0) {
+            size--;
+            TreeNode node = nodes[size];
+            nodes[size] = null;
+            if (!subtree[size]) {
+                action.accept(node.val);
+                return true;
+            }
+            expand(node);
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+        while (true) {
+            int last = 0;
+            while (last < size && !subtree[last]) {
+                last++;
+            }
+            if (last == size) {
+                return null;
+            }
+            if (last < size - 1) {
+                TreeSpliterator prefix = new TreeSpliterator(order, estimate >>>= 1);
+                for (int i = last + 1; i < size; i++) {
+                    prefix.push(nodes[i], subtree[i]);
+                    nodes[i] = null;
+                }
+                size = last + 1;
+                return prefix;
+            }
+            // 只剩栈顶这一棵子树，先把它拆开
+            size--;
+            TreeNode node = nodes[size];
+            nodes[size] = null;
+            expand(node);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
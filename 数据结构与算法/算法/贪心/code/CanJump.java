@@ -1,3 +1,5 @@
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
 
 public class CanJump {
     public boolean canJump(int[] nums) {
@@ -19,8 +21,93 @@ public class CanJump {
         return false;
     }
 
+    /**
+     * 不需要额外的数组，边走边更新能到达的最远位置，一旦能到达终点就直接返回
+     */
+    public boolean canJump2(int[] nums) {
+        int last = nums.length - 1;
+        int maxIndex = 0;
+        for (int i = 0; i <= maxIndex && i < last; i++) {
+            // 用减法比较，避免 i + nums[i] 溢出
+            if (nums[i] >= last - i) {
+                return true;
+            }
+            if (maxIndex < i + nums[i]) {
+                maxIndex = i + nums[i];
+            }
+        }
+        return maxIndex >= last;
+    }
+
+    /**
+     * 数据按块读入，适用于没办法一次性放进内存的数组
+     */
+    public interface IntChunks {
+        // 把下一段数据读入 buffer，返回读入的个数，没有数据时返回 -1
+        int next(int[] buffer);
+    }
+
+    /**
+     * 按块读取跳跃数组，length 为数组的总长度，下标用 long 表示，可以超过 int 的范围。
+     * 能到达终点或者遇到到达不了的位置时就不再继续读取。
+     */
+    public boolean canJump(IntChunks chunks, long length, int[] buffer) {
+        long last = length - 1;
+        long maxIndex = 0;
+        long i = 0;
+        int n;
+        while ((n = chunks.next(buffer)) > 0) {
+            for (int k = 0; k < n; k++, i++) {
+                if (i > maxIndex) {
+                    return false;
+                }
+                if (i + buffer[k] >= last) {
+                    return true;
+                }
+                if (maxIndex < i + buffer[k]) {
+                    maxIndex = i + buffer[k];
+                }
+            }
+        }
+        return maxIndex >= last;
+    }
+
+    /**
+     * 长度未知的数据流，只有读到流的末尾才能确定可以到达终点，
+     * 但是遇到到达不了的位置时可以提前返回 false。
+     */
+    public boolean canJump(IntStream nums) {
+        PrimitiveIterator.OfInt it = nums.iterator();
+        long maxIndex = 0;
+        for (long i = 0; it.hasNext(); i++) {
+            int num = it.nextInt();
+            if (i > maxIndex) {
+                return false;
+            }
+            if (maxIndex < i + num) {
+                maxIndex = i + num;
+            }
+        }
+        return true;
+    }
+
     public static void main(String[] args) {
         CanJump c = new CanJump();
         System.out.println(c.canJump(new int[]{2, 3, 1, 1, 4}));
+        System.out.println(c.canJump2(new int[]{3, 2, 1, 0, 4}));
+        System.out.println(c.canJump(IntStream.of(2, 3, 1, 1, 4)));
+
+        int[] nums = {2, 3, 1, 1, 4};
+        int[] offset = {0};
+        IntChunks chunks = buffer -> {
+            if (offset[0] == nums.length) {
+                return -1;
+            }
+            int n = Math.min(buffer.length, nums.length - offset[0]);
+            System.arraycopy(nums, offset[0], buffer, 0, n);
+            offset[0] += n;
+            return n;
+        };
+        System.out.println(c.canJump(chunks, nums.length, new int[2]));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * 通用的找零（最少钞票数）计算
+ *
+ * Money 中的人民币面额之间有倍数关系，贪心就是最优解；但是任意的面额组合不一定，
+ * 比如加入 7 元面额后，14 的贪心解是 10 + 1 + 1 + 1，最优解是 7 + 7。
+ *
+ * 创建时先判断贪心对这组面额是否成立：面额中包含 1 时，如果存在贪心不是最优解的金额，
+ * 最小的这样的金额一定小于最大的两个面额之和（Kozen & Zaks），只需要用动态规划检查这个范围。
+ * 贪心成立时直接贪心计算；不成立时把检查用的动态规划表继续算到 maxAmount，查询时直接查表。
+ * 动态规划表最多 MAX_TABLE 项，最大的两个面额之和或者 maxAmount 超过它时抛出 IllegalArgumentException。
+ */
+public class ChangeMaker {
+    private static final int IMPOSSIBLE = Integer.MAX_VALUE;
+    // 动态规划表的最大金额，两个 int 数组一共 128MB
+    static final int MAX_TABLE = 1 << 24;
+
+    // 面额，从大到小
+    private final int[] denominations;
+    private final boolean greedyOptimal;
+    private final int maxAmount;
+    // minCoins[x]: 金额 x 最少需要的张数，lastCoin[x]: 最优解中用到的一张钞票在 denominations 中的下标
+    private int[] minCoins;
+    private int[] lastCoin;
+
+    /**
+     * @param maxAmount 贪心不成立时，能够查询的最大金额，不能超过 MAX_TABLE
+     */
+    public ChangeMaker(int[] denominations, int maxAmount) {
+        this.denominations = Arrays.stream(denominations).distinct().sorted().toArray();
+        if (this.denominations.length == 0 || this.denominations[0] <= 0) {
+            throw new IllegalArgumentException("denominations must be positive: " + Arrays.toString(denominations));
+        }
+        reverse(this.denominations);
+        this.greedyOptimal = checkGreedy();
+        this.maxAmount = greedyOptimal ? Integer.MAX_VALUE : maxAmount;
+        if (!greedyOptimal) {
+            checkTableSize("maxAmount", maxAmount);
+            buildTable(maxAmount);
+        }
+    }
+
+    public boolean isGreedyOptimal() {
+        return greedyOptimal;
+    }
+
+    public int[] denominations() {
+        return denominations.clone();
+    }
+
+    /**
+     * 返回金额 amount 最少需要的张数，凑不出来时返回 -1
+     */
+    public int minCoins(int amount) {
+        checkAmount(amount);
+        if (greedyOptimal) {
+            return greedy(amount, null);
+        }
+        return minCoins[amount] == IMPOSSIBLE ? -1 : minCoins[amount];
+    }
+
+    /**
+     * 批量查询，result[i] 为 amounts[i] 最少需要的张数
+     */
+    public void minCoins(int[] amounts, int[] result) {
+        for (int i = 0; i < amounts.length; i++) {
+            result[i] = minCoins(amounts[i]);
+        }
+    }
+
+    /**
+     * 计算具体的找零方案，counts[i] 为面额 denominations()[i] 使用的张数，凑不出来时返回 false
+     */
+    public boolean change(int amount, int[] counts) {
+        checkAmount(amount);
+        Arrays.fill(counts, 0, denominations.length, 0);
+        if (greedyOptimal) {
+            return greedy(amount, counts) >= 0;
+        }
+        if (minCoins[amount] == IMPOSSIBLE) {
+            return false;
+        }
+        while (amount > 0) {
+            int coin = lastCoin[amount];
+            counts[coin]++;
+            amount -= denominations[coin];
+        }
+        return true;
+    }
+
+    private void checkAmount(int amount) {
+        if (amount < 0 || amount > maxAmount) {
+            throw new IllegalArgumentException("amount " + amount + " out of range [0, " + maxAmount + "]");
+        }
+    }
+
+    private int greedy(int amount, int[] counts) {
+        int count = 0;
+        for (int i = 0; i < denominations.length && amount > 0; i++) {
+            int use = amount / denominations[i];
+            amount = amount % denominations[i];
+            count += use;
+            if (counts != null) {
+                counts[i] = use;
+            }
+        }
+        return amount == 0 ? count : -1;
+    }
+
+    private boolean checkGreedy() {
+        int n = denominations.length;
+        if (denominations[n - 1] != 1) {
+            return false;
+        }
+        if (n <= 2) {
+            return true;
+        }
+        // 用 long 计算，两个面额都接近 Integer.MAX_VALUE 时不会溢出
+        long bound = (long) denominations[0] + denominations[1];
+        checkTableSize("denominations[0] + denominations[1] - 1", bound - 1);
+        buildTable((int) (bound - 1));
+        for (int x = 1; x < bound; x++) {
+            if (greedy(x, null) != minCoins[x]) {
+                return false;
+            }
+        }
+        minCoins = null;
+        lastCoin = null;
+        return true;
+    }
+
+    private static void checkTableSize(String name, long amount) {
+        if (amount < 0 || amount > MAX_TABLE) {
+            throw new IllegalArgumentException(name + " = " + amount + " out of range [0, " + MAX_TABLE + "]");
+        }
+    }
+
+    /**
+     * 把动态规划表算到 maxAmount，已经算过的部分（checkGreedy 留下的表）直接沿用
+     */
+    private void buildTable(int maxAmount) {
+        if (minCoins != null && maxAmount < minCoins.length) {
+            return;
+        }
+        int from = minCoins == null ? 1 : minCoins.length;
+        minCoins = minCoins == null ? new int[maxAmount + 1] : Arrays.copyOf(minCoins, maxAmount + 1);
+        lastCoin = lastCoin == null ? new int[maxAmount + 1] : Arrays.copyOf(lastCoin, maxAmount + 1);
+        Arrays.fill(minCoins, from, maxAmount + 1, IMPOSSIBLE);
+        for (int x = from; x <= maxAmount; x++) {
+            for (int i = 0; i < denominations.length; i++) {
+                int rest = x - denominations[i];
+                if (rest >= 0 && minCoins[rest] != IMPOSSIBLE && minCoins[rest] + 1 < minCoins[x]) {
+                    minCoins[x] = minCoins[rest] + 1;
+                    lastCoin[x] = i;
+                }
+            }
+        }
+    }
+
+    private static void reverse(int[] a) {
+        for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    public static void main(String[] args) {
+        ChangeMaker rmb = new ChangeMaker(Money.RMB, 0);
+        System.out.println("人民币面额贪心是否成立：" + rmb.isGreedyOptimal() + "，1024 需要 " + rmb.minCoins(1024) + " 张");
+
+        ChangeMaker withSeven = new ChangeMaker(new int[]{200, 100, 20, 10, 7, 5, 1}, 10000);
+        int[] counts = new int[withSeven.denominations().length];
+        withSeven.change(14, counts);
+        System.out.println("加入 7 元后贪心是否成立：" + withSeven.isGreedyOptimal() + "，14 需要 " + withSeven.minCoins(14)
+                + " 张：" + Arrays.toString(withSeven.denominations()) + " -> " + Arrays.toString(counts));
+    }
+}
@@ -1,4 +1,6 @@
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public class FindContentChildren {
     public int findContentChildren(int[] g, int[] s) {
@@ -15,10 +17,81 @@ public class FindContentChildren {
         return child;
     }
 
+    /**
+     * 并行版本，结果和 findContentChildren 相同，适合 g 和 s 都非常大的情况。
+     *
+     * 先用 parallelSort 排序，再按照胃口值把值域切成若干段，每一段 [lo, hi) 内的孩子和饼干
+     * 各自用双指针贪心匹配。一段里剩下的饼干都不小于 lo，可以满足前面所有段里没吃到饼干的孩子，
+     * 所以最后从小到大合并各段的结果：用这一段剩下的饼干去满足前面积攒下来的孩子。
+     */
+    public int findContentChildrenParallel(int[] g, int[] s) {
+        return findContentChildrenParallel(g, s, ForkJoinPool.getCommonPoolParallelism() * 4);
+    }
+
+    public int findContentChildrenParallel(int[] g, int[] s, int parts) {
+        Arrays.parallelSort(g);
+        Arrays.parallelSort(s);
+        if (g.length == 0 || s.length == 0) {
+            return 0;
+        }
+        parts = Math.max(1, Math.min(parts, g.length));
+        // 第 k 段的孩子是 g[childFrom[k], childFrom[k + 1])，饼干是 s[cookieFrom[k], cookieFrom[k + 1])
+        int[] childFrom = new int[parts + 1];
+        int[] cookieFrom = new int[parts + 1];
+        childFrom[parts] = g.length;
+        cookieFrom[parts] = s.length;
+        for (int k = 1; k < parts; k++) {
+            int pivot = g[(int) ((long) g.length * k / parts)];
+            childFrom[k] = lowerBound(g, pivot);
+            cookieFrom[k] = lowerBound(s, pivot);
+        }
+        int[] matched = new int[parts];
+        IntStream.range(0, parts).parallel().forEach(k -> matched[k] =
+                match(g, childFrom[k], childFrom[k + 1], s, cookieFrom[k], cookieFrom[k + 1]));
+        int child = 0;
+        // 前面各段里还没有吃到饼干的孩子
+        int waiting = 0;
+        for (int k = 0; k < parts; k++) {
+            int leftCookies = cookieFrom[k + 1] - cookieFrom[k] - matched[k];
+            int extra = Math.min(waiting, leftCookies);
+            child += matched[k] + extra;
+            waiting += childFrom[k + 1] - childFrom[k] - matched[k] - extra;
+        }
+        return child;
+    }
+
+    // 第一个不小于 key 的位置
+    static int lowerBound(int[] a, int key) {
+        int lo = 0;
+        int hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    static int match(int[] g, int childFrom, int childTo, int[] s, int cookieFrom, int cookieTo) {
+        int child = childFrom;
+        int cookies = cookieFrom;
+        while (child < childTo && cookies < cookieTo) {
+            if (g[child] <= s[cookies]) {
+                child++;
+            }
+            cookies++;
+        }
+        return child - childFrom;
+    }
+
     public static void main(String[] args) {
         FindContentChildren f = new FindContentChildren();
         int children = f.findContentChildren(new int[]{1,2,3}, new int[]{1, 1});
         System.out.println(children);
+        System.out.println(f.findContentChildrenParallel(new int[]{1, 2}, new int[]{1, 2, 3}));
     }
 
 }
\ No newline at end of file
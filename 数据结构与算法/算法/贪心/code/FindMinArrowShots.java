@@ -13,7 +13,8 @@ public class FindMinArrowShots {
         @Override
         public int compareTo(Object o) {
             Pair that = (Pair) o;
-            return this.begin - that.begin;
+            // 直接相减在坐标很大时会溢出
+            return Integer.compare(this.begin, that.begin);
         }
 
     }
@@ -45,6 +46,96 @@ public class FindMinArrowShots {
         return shootNum;
     }
 
+    /**
+     * 把区间 [begin, end] 压缩成一个 long：高 32 位是 end（翻转了符号位，
+     * 这样按无符号比较的顺序和 int 的大小顺序一致），低 32 位是 begin
+     */
+    public static long pack(int begin, int end) {
+        return ((long) (end ^ Integer.MIN_VALUE) << 32) | (begin & 0xFFFFFFFFL);
+    }
+
+    static int begin(long interval) {
+        return (int) interval;
+    }
+
+    static int end(long interval) {
+        return (int) (interval >>> 32) ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * 区间的起点和终点分别保存在两个数组中
+     */
+    public int findMinArrowShots(int[] begins, int[] ends) {
+        if (begins.length != ends.length) {
+            throw new IllegalArgumentException("begins.length " + begins.length + " != ends.length " + ends.length);
+        }
+        long[] intervals = new long[begins.length];
+        for (int i = 0; i < begins.length; i++) {
+            intervals[i] = pack(begins[i], ends[i]);
+        }
+        return findMinArrowShots(intervals, new long[intervals.length]);
+    }
+
+    /**
+     * 区间用 pack 压缩后保存在 intervals 中，intervals 会被按照终点排序。
+     * 按终点排序后，每支箭都射在当前区间的终点，之后起点不超过这个位置的区间都会被射穿。
+     * 排序用的是基数排序，scratch 是排序用的辅助数组，长度不能小于 intervals，整个过程不创建对象。
+     */
+    public int findMinArrowShots(long[] intervals, long[] scratch) {
+        if (scratch.length < intervals.length) {
+            throw new IllegalArgumentException("scratch.length " + scratch.length + " < intervals.length "
+                    + intervals.length);
+        }
+        if (intervals.length == 0) {
+            return 0;
+        }
+        radixSortByEnd(intervals, scratch);
+        int shootNum = 1;
+        int shootEnd = end(intervals[0]);
+        for (int i = 1; i < intervals.length; i++) {
+            if (begin(intervals[i]) > shootEnd) {
+                shootNum++;
+                shootEnd = end(intervals[i]);
+            }
+        }
+        return shootNum;
+    }
+
+    /**
+     * LSD 基数排序，只按高 32 位排序，每次处理 8 位，一共 4 趟。
+     * 某一趟所有元素都落在同一个桶里时直接跳过。
+     */
+    static void radixSortByEnd(long[] a, long[] scratch) {
+        int n = a.length;
+        long[] src = a;
+        long[] dst = scratch;
+        int[] count = new int[256];
+        for (int shift = 32; shift < 64; shift += 8) {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                count[(int) (src[i] >>> shift) & 0xFF]++;
+            }
+            if (count[(int) (src[0] >>> shift) & 0xFF] == n) {
+                continue;
+            }
+            int sum = 0;
+            for (int b = 0; b < 256; b++) {
+                int c = count[b];
+                count[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                dst[count[(int) (src[i] >>> shift) & 0xFF]++] = src[i];
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
     public static void main(String[] args) {
         FindMinArrowShots f = new FindMinArrowShots();
         System.out.println(f.findMinArrowShots(new int[][]{
@@ -53,5 +144,7 @@ public class FindMinArrowShots {
             {1, 6},
             {7, 12}
         }));
+        System.out.println(f.findMinArrowShots(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE},
+            new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE}));
     }
 }
\ No newline at end of file
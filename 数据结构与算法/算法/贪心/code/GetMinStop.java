@@ -1,29 +1,14 @@
+import java.io.IOException;
 import java.util.Comparator;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.PriorityQueue;
-import java.util.Scanner;
 
 
-class Pair {
-    int distance;
-    int gas;
-
-    public Pair(int distance, int gas) {
-        this.distance = distance;
-        this.gas = gas;
-    }
-
-    @Override
-    public String toString() {
-        return "Pair [distance=" + distance + ", gas=" + gas + "]";
-    }
-}
-
 public class GetMinStop {
 
-    public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
+    public static void main(String[] args) throws IOException {
+        IntReader sc = new IntReader(System.in);
         int n = sc.nextInt();
         ArrayList<Pair> stop = new ArrayList<>();
         while (n-- > 0) {
@@ -0,0 +1,495 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * 贪心算法的性能测试
+ *
+ * 运行方式：
+ *   javac *.java
+ *   java -Xmx4g GreedyBenchmark [名称过滤] [规模...]
+ * 例如 java GreedyBenchmark Jump 1000 1000000，不指定规模时依次测试 1e3 ~ 1e7。
+ *
+ * 没有引入 JMH，这里用一个简单的测量框架：每个规模先预热，再逐次调用并计时。
+ * 每次调用前都会重新准备输入（对应 JMH 的 Level.Invocation），准备的开销不计入结果。
+ * 输出吞吐量（ops/s）、平均耗时（ns/op）以及每次调用分配的字节数（B/op，
+ * 对应 JMH 的 gc.alloc.rate.norm），分配字节数通过 ThreadMXBean 统计当前线程得到。
+ */
+public class GreedyBenchmark {
+
+    static final int[] DEFAULT_SIZES = {1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    static final long WARMUP_NANOS = Long.getLong("bench.warmup", 1000) * 1_000_000L;
+    static final long MEASURE_NANOS = Long.getLong("bench.measure", 2000) * 1_000_000L;
+    static final int MIN_INVOCATIONS = 5;
+
+    // 防止 JIT 把结果当成无用代码消除
+    static volatile long sink;
+
+    /**
+     * 一个测试用例：数据生成器 + 被测方法
+     */
+    abstract static class Case<T> {
+        final String name;
+
+        Case(String name) {
+            this.name = name;
+        }
+
+        // 生成规模为 size 的输入数据
+        abstract T generate(int size, Random random);
+
+        // 被测方法会修改输入时，需要在每次调用前复制一份
+        T prepare(T data) {
+            return data;
+        }
+
+        // 调用被测方法，返回值用于防止死代码消除
+        abstract long run(T input);
+    }
+
+    static List<Case<?>> cases() {
+        List<Case<?>> cases = new ArrayList<>();
+        cases.add(new Case<int[]>("CanJump") {
+            CanJump solver = new CanJump();
+
+            int[] generate(int size, Random random) {
+                return GreedyData.jumpArray(size, random);
+            }
+
+            long run(int[] input) {
+                return solver.canJump(input) ? 1 : 0;
+            }
+        });
+        cases.add(new Case<int[]>("CanJump.canJump2") {
+            CanJump solver = new CanJump();
+
+            int[] generate(int size, Random random) {
+                return GreedyData.jumpArray(size, random);
+            }
+
+            long run(int[] input) {
+                return solver.canJump2(input) ? 1 : 0;
+            }
+        });
+        cases.add(new Case<int[]>("Jump") {
+            Jump solver = new Jump();
+
+            int[] generate(int size, Random random) {
+                return GreedyData.jumpArray(size, random);
+            }
+
+            long run(int[] input) {
+                return solver.jump(input);
+            }
+        });
+        cases.add(new Case<GreedyData.JumpQueries>("Jump.perQuery") {
+            Jump solver = new Jump();
+
+            GreedyData.JumpQueries generate(int size, Random random) {
+                return GreedyData.jumpQueries(size, random);
+            }
+
+            long run(GreedyData.JumpQueries input) {
+                long sum = 0;
+                for (int[] nums : input.arrays) {
+                    sum += solver.jump(nums);
+                }
+                return sum;
+            }
+        });
+        cases.add(new Case<GreedyData.JumpQueries>("Jump.jumpAll") {
+            GreedyData.JumpQueries generate(int size, Random random) {
+                return GreedyData.jumpQueries(size, random);
+            }
+
+            long run(GreedyData.JumpQueries input) {
+                Jump.jumpAll(input.buffer, input.offsets, input.result);
+                return input.result[0];
+            }
+        });
+        cases.add(new Case<int[][]>("FindContentChildren") {
+            FindContentChildren solver = new FindContentChildren();
+
+            int[][] generate(int size, Random random) {
+                return new int[][]{GreedyData.randomArray(size, size, random), GreedyData.randomArray(size, size, random)};
+            }
+
+            int[][] prepare(int[][] data) {
+                return new int[][]{data[0].clone(), data[1].clone()};
+            }
+
+            long run(int[][] input) {
+                return solver.findContentChildren(input[0], input[1]);
+            }
+        });
+        cases.add(new Case<int[][]>("FindContentChildren.parallel") {
+            FindContentChildren solver = new FindContentChildren();
+
+            int[][] generate(int size, Random random) {
+                return new int[][]{GreedyData.randomArray(size, size, random), GreedyData.randomArray(size, size, random)};
+            }
+
+            int[][] prepare(int[][] data) {
+                return new int[][]{data[0].clone(), data[1].clone()};
+            }
+
+            long run(int[][] input) {
+                return solver.findContentChildrenParallel(input[0], input[1]);
+            }
+        });
+        cases.add(new Case<int[][]>("FindMinArrowShots") {
+            FindMinArrowShots solver = new FindMinArrowShots();
+
+            int[][] generate(int size, Random random) {
+                return GreedyData.intervals(size, random);
+            }
+
+            long run(int[][] input) {
+                return solver.findMinArrowShots(input);
+            }
+        });
+        cases.add(new Case<long[][]>("FindMinArrowShots.packed") {
+            FindMinArrowShots solver = new FindMinArrowShots();
+
+            long[][] generate(int size, Random random) {
+                int[][] points = GreedyData.intervals(size, random);
+                long[] intervals = new long[size];
+                for (int i = 0; i < size; i++) {
+                    intervals[i] = FindMinArrowShots.pack(points[i][0], points[i][1]);
+                }
+                return new long[][]{intervals, new long[size]};
+            }
+
+            // 排序会改变 intervals 的顺序，scratch 可以复用
+            long[][] prepare(long[][] data) {
+                return new long[][]{data[0].clone(), data[1]};
+            }
+
+            long run(long[][] input) {
+                return solver.findMinArrowShots(input[0], input[1]);
+            }
+        });
+        cases.add(new Case<GreedyData.Route>("GetMinStop") {
+            GetMinStop solver = new GetMinStop();
+
+            GreedyData.Route generate(int size, Random random) {
+                return GreedyData.route(size, random);
+            }
+
+            GreedyData.Route prepare(GreedyData.Route data) {
+                return data.copy();
+            }
+
+            long run(GreedyData.Route input) {
+                return solver.getMinStop(input.length, input.p, input.stop);
+            }
+        });
+        cases.add(new Case<GreedyData.Route>("MinStopEngine") {
+            GreedyData.Route generate(int size, Random random) {
+                return GreedyData.route(size, random);
+            }
+
+            long run(GreedyData.Route input) {
+                MinStopEngine engine = new MinStopEngine(input.length, input.p);
+                for (Pair station : input.stop) {
+                    engine.addStation(station.distance, station.gas);
+                }
+                return engine.finish();
+            }
+        });
+        cases.add(new Case<String>("RemoveKdigits") {
+            RemoveKdigits solver = new RemoveKdigits();
+
+            String generate(int size, Random random) {
+                return GreedyData.digits(size, random);
+            }
+
+            long run(String input) {
+                return solver.removeKdigits(input, input.length() / 2).length();
+            }
+        });
+        cases.add(new Case<String>("RemoveKdigits.array") {
+            RemoveKdigits solver = new RemoveKdigits();
+
+            String generate(int size, Random random) {
+                return GreedyData.digits(size, random);
+            }
+
+            long run(String input) {
+                return solver.removeKdigits2(input, input.length() / 2).length();
+            }
+        });
+        cases.add(new Case<String>("RemoveKdigits.stream") {
+            RemoveKdigits solver = new RemoveKdigits();
+
+            String generate(int size, Random random) {
+                return GreedyData.digits(size, random);
+            }
+
+            long run(String input) {
+                StringWriter out = new StringWriter(input.length());
+                try {
+                    solver.removeKdigits(new StringReader(input), input.length() / 2, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return out.getBuffer().length();
+            }
+        });
+        cases.add(new Case<int[][]>("ChangeMaker.greedy") {
+            ChangeMaker maker = new ChangeMaker(Money.RMB, 0);
+
+            int[][] generate(int size, Random random) {
+                return new int[][]{GreedyData.randomArray(size, 100_000, random), new int[size]};
+            }
+
+            long run(int[][] input) {
+                maker.minCoins(input[0], input[1]);
+                return input[1][0];
+            }
+        });
+        cases.add(new Case<int[][]>("ChangeMaker.table") {
+            ChangeMaker maker = new ChangeMaker(new int[]{200, 100, 20, 10, 7, 5, 1}, 100_000);
+
+            int[][] generate(int size, Random random) {
+                return new int[][]{GreedyData.randomArray(size, 100_000, random), new int[size]};
+            }
+
+            long run(int[][] input) {
+                maker.minCoins(input[0], input[1]);
+                return input[1][0];
+            }
+        });
+        cases.add(new Case<Path>("Scanner") {
+            Path generate(int size, Random random) {
+                return GreedyData.intFile(size, random);
+            }
+
+            long run(Path input) {
+                long sum = 0;
+                try (Scanner sc = new Scanner(new BufferedInputStream(Files.newInputStream(input)))) {
+                    while (sc.hasNextInt()) {
+                        sum += sc.nextInt();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return sum;
+            }
+        });
+        cases.add(new Case<Path>("IntReader") {
+            Path generate(int size, Random random) {
+                return GreedyData.intFile(size, random);
+            }
+
+            long run(Path input) {
+                long sum = 0;
+                try (IntReader reader = IntReader.open(input)) {
+                    while (reader.hasNext()) {
+                        sum += reader.nextInt();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return sum;
+            }
+        });
+        return cases;
+    }
+
+    public static void main(String[] args) {
+        String filter = null;
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.matches("\\d+")) {
+                sizes.add(Integer.parseInt(arg));
+            } else {
+                filter = arg;
+            }
+        }
+        if (sizes.isEmpty()) {
+            for (int size : DEFAULT_SIZES) {
+                sizes.add(size);
+            }
+        }
+        System.out.printf("%-32s %10s %14s %14s %16s%n", "Benchmark", "size", "ops/s", "ns/op", "B/op");
+        for (Case<?> c : cases()) {
+            if (filter != null && !c.name.contains(filter)) {
+                continue;
+            }
+            for (int size : sizes) {
+                Result r = measure(c, size);
+                System.out.printf("%-32s %10d %14.2f %14.0f %16.1f%n", c.name, size, r.opsPerSecond(), r.nanosPerOp(),
+                        r.bytesPerOp());
+            }
+        }
+    }
+
+    static class Result {
+        long invocations;
+        long nanos;
+        long bytes;
+
+        double opsPerSecond() {
+            return invocations * 1e9 / nanos;
+        }
+
+        double nanosPerOp() {
+            return (double) nanos / invocations;
+        }
+
+        double bytesPerOp() {
+            return (double) bytes / invocations;
+        }
+    }
+
+    static <T> Result measure(Case<T> c, int size) {
+        T data = c.generate(size, new Random(size));
+        run(c, data, WARMUP_NANOS);
+        return run(c, data, MEASURE_NANOS);
+    }
+
+    static <T> Result run(Case<T> c, T data, long budget) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        Result r = new Result();
+        long deadline = System.nanoTime() + budget;
+        long result = 0;
+        while (r.invocations < MIN_INVOCATIONS || System.nanoTime() < deadline) {
+            T input = c.prepare(data);
+            long bytes = threads.getThreadAllocatedBytes(tid);
+            long start = System.nanoTime();
+            result += c.run(input);
+            r.nanos += System.nanoTime() - start;
+            r.bytes += threads.getThreadAllocatedBytes(tid) - bytes;
+            r.invocations++;
+        }
+        sink = result;
+        return r;
+    }
+}
+
+/**
+ * 各个贪心算法的测试数据生成器，使用固定种子保证每次生成的数据相同
+ */
+class GreedyData {
+
+    static class Route {
+        int length;
+        int p;
+        ArrayList<Pair> stop;
+
+        Route copy() {
+            Route r = new Route();
+            r.length = length;
+            r.p = p;
+            r.stop = new ArrayList<>(stop);
+            return r;
+        }
+    }
+
+    // 批量的跳跃查询：同一份数据既保存为独立的数组，也首尾相接保存在 buffer 中
+    static class JumpQueries {
+        int[][] arrays;
+        int[] buffer;
+        int[] offsets;
+        int[] result;
+    }
+
+    // 总长度为 size，每个查询长度为 1 ~ 32
+    static JumpQueries jumpQueries(int size, Random random) {
+        JumpQueries q = new JumpQueries();
+        q.buffer = jumpArray(size, random);
+        ArrayList<Integer> offsets = new ArrayList<>();
+        for (int offset = 0; offset < size; offset += 1 + random.nextInt(32)) {
+            offsets.add(offset);
+        }
+        offsets.add(size);
+        q.offsets = new int[offsets.size()];
+        q.arrays = new int[offsets.size() - 1][];
+        for (int i = 0; i < q.offsets.length; i++) {
+            q.offsets[i] = offsets.get(i);
+        }
+        for (int i = 0; i < q.arrays.length; i++) {
+            q.arrays[i] = java.util.Arrays.copyOfRange(q.buffer, q.offsets[i], q.offsets[i + 1]);
+        }
+        q.result = new int[q.arrays.length];
+        return q;
+    }
+
+    // 跳跃数组：每个位置可以跳 1 ~ 3 步，保证终点可达
+    static int[] jumpArray(int size, Random random) {
+        int[] nums = new int[size];
+        for (int i = 0; i < size; i++) {
+            nums[i] = 1 + random.nextInt(3);
+        }
+        return nums;
+    }
+
+    static int[] randomArray(int size, int bound, Random random) {
+        int[] nums = new int[size];
+        for (int i = 0; i < size; i++) {
+            nums[i] = 1 + random.nextInt(bound);
+        }
+        return nums;
+    }
+
+    // 气球区间：起点随机，长度为 0 ~ 99
+    static int[][] intervals(int size, Random random) {
+        int[][] points = new int[size][2];
+        for (int i = 0; i < size; i++) {
+            int begin = random.nextInt(size * 10);
+            points[i][0] = begin;
+            points[i][1] = begin + random.nextInt(100);
+        }
+        return points;
+    }
+
+    // 加油站：每隔 10 个单位一个加油站，油量 5 ~ 20，初始油量只够开到第一个加油站
+    static Route route(int size, Random random) {
+        Route r = new Route();
+        r.length = size * 10 + 10;
+        r.p = 10;
+        r.stop = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            r.stop.add(new Pair(r.length - (i + 1) * 10, 5 + random.nextInt(16)));
+        }
+        return r;
+    }
+
+    // 写有 size 个随机整数的临时文件，每行一个，程序退出时删除
+    static Path intFile(int size, Random random) {
+        try {
+            Path path = Files.createTempFile("ints-" + size + "-", ".txt");
+            path.toFile().deleteOnExit();
+            try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+                for (int i = 0; i < size; i++) {
+                    writer.write(Integer.toString(random.nextInt()));
+                    writer.newLine();
+                }
+            }
+            return path;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String digits(int size, Random random) {
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(chars);
+    }
+}
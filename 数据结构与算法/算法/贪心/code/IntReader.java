@@ -0,0 +1,126 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * 读取以空白字符分隔的整数，用来代替 Scanner 作为贪心算法的输入
+ *
+ * Scanner 每读一个数都要经过正则匹配并创建 String，输入有上百万个数时大部分时间都花在了读取上。
+ * 这里通过 NIO 的 Channel 按块读入字节，直接在字节上解析整数，读取过程中不会创建对象。
+ */
+public class IntReader implements Closeable, CanJump.IntChunks {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(buf);
+    private int pos;
+    private int limit;
+
+    public IntReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public IntReader(InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    public static IntReader open(Path path) throws IOException {
+        return new IntReader(FileChannel.open(path));
+    }
+
+    // 读取下一个字节（0 ~ 255），没有数据时返回 -1
+    private int read() throws IOException {
+        if (pos == limit) {
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            if (n < 0) {
+                return -1;
+            }
+            pos = 0;
+            limit = n;
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    // 跳过空白字符，返回第一个非空白字符
+    private int skipBlank() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && c <= ' ');
+        return c;
+    }
+
+    public boolean hasNext() throws IOException {
+        int c = skipBlank();
+        if (c == -1) {
+            return false;
+        }
+        pos--;
+        return true;
+    }
+
+    public int nextInt() throws IOException {
+        int c = skipBlank();
+        if (c == -1) {
+            throw new NoSuchElementException();
+        }
+        boolean negative = c == '-';
+        if (negative) {
+            c = read();
+        }
+        if (c == -1) {
+            throw new NumberFormatException("unexpected end of input after '-'");
+        }
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("unexpected character '" + (char) c + "'");
+        }
+        // 按负数累加，这样 Integer.MIN_VALUE 也不会溢出，超出 int 范围时抛出 NumberFormatException
+        int bound = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int result = 0;
+        while (c >= '0' && c <= '9') {
+            int digit = c - '0';
+            if (result < bound / 10 || result * 10 < bound + digit) {
+                throw new NumberFormatException("out of int range");
+            }
+            result = result * 10 - digit;
+            c = read();
+        }
+        if (c != -1) {
+            pos--;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * 连续读取最多 buffer.length 个整数，返回读到的个数，没有数据时返回 -1
+     */
+    @Override
+    public int next(int[] buffer) {
+        try {
+            int n = 0;
+            while (n < buffer.length && hasNext()) {
+                buffer[n++] = nextInt();
+            }
+            return n == 0 ? -1 : n;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
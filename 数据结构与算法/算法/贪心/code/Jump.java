@@ -1,27 +1,93 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Jump {
 
     public int jump(int[] nums) {
-        if (nums.length == 1) {
+        return jump(nums, 0, nums.length);
+    }
+
+    /**
+     * 只处理 nums[from, to) 这一段，下标相对于 from 计算
+     */
+    public static int jump(int[] nums, int from, int to) {
+        if (to - from <= 1) {
             return 0;
         }
-        int currentmaxindex = nums[0];
-        int premaxmaxindex = nums[0];
+        int currentmaxindex = nums[from];
+        int premaxmaxindex = nums[from];
         int jumpmin = 1;
-        for (int i = 1; i < nums.length; i++) {
+        for (int i = 1; i < to - from; i++) {
             if (currentmaxindex < i) {
                 currentmaxindex = premaxmaxindex;
                 jumpmin++;
             }
-            if (premaxmaxindex < nums[i] + i) {
-                premaxmaxindex = nums[i] + i;
+            if (premaxmaxindex < nums[from + i] + i) {
+                premaxmaxindex = nums[from + i] + i;
             }
         }
         return jumpmin;
     }
 
+    // 每个任务至少处理的查询数，太小的话任务拆分的开销会超过计算本身
+    static final int BATCH_THRESHOLD = 1024;
+
+    /**
+     * 批量求解：所有查询的数组首尾相接存放在 buffer 中，第 q 个查询为
+     * buffer[offsets[q], offsets[q + 1])，结果写入 result[q]。
+     * result 可以重复使用，求解过程中不会为每个查询创建对象。
+     */
+    public static void jumpAll(int[] buffer, int[] offsets, int[] result) {
+        jumpAll(ForkJoinPool.commonPool(), buffer, offsets, result);
+    }
+
+    public static void jumpAll(ForkJoinPool pool, int[] buffer, int[] offsets, int[] result) {
+        int queries = offsets.length - 1;
+        if (result.length < queries) {
+            throw new IllegalArgumentException("result.length < " + queries);
+        }
+        pool.invoke(new JumpTask(buffer, offsets, result, 0, queries));
+    }
+
+    static class JumpTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int[] buffer;
+        final int[] offsets;
+        final int[] result;
+        final int from;
+        final int to;
+
+        JumpTask(int[] buffer, int[] offsets, int[] result, int from, int to) {
+            this.buffer = buffer;
+            this.offsets = offsets;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_THRESHOLD) {
+                for (int q = from; q < to; q++) {
+                    result[q] = jump(buffer, offsets[q], offsets[q + 1]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new JumpTask(buffer, offsets, result, from, mid),
+                    new JumpTask(buffer, offsets, result, mid, to));
+        }
+    }
+
     public static void main(String[] args) {
         Jump jump = new Jump();
         System.out.println(jump.jump(new int[] { 2, 1 }));
+
+        int[] buffer = { 2, 1, 2, 3, 1, 1, 4, 0 };
+        int[] offsets = { 0, 2, 7, 8 };
+        int[] result = new int[3];
+        jumpAll(buffer, offsets, result);
+        System.out.println(java.util.Arrays.toString(result));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+ * 增量版本的最少加油次数（GetMinStop）
+ *
+ * 加油站按照行驶的先后顺序（距离终点由远到近）一个一个地输入，不需要事先拿到全部加油站，
+ * 也不会修改或者排序输入。经过的加油站的油量保存在一个 int 数组实现的大顶堆中，
+ * 油不够开到下一个加油站时，才从经过的加油站里挑油量最多的加油。
+ *
+ * 每输入一个加油站都会返回到达这个加油站最少需要加油的次数，最后调用 finish 得到到达终点的结果。
+ */
+public class MinStopEngine {
+    // 当前位置到终点的距离
+    private int length;
+    // 当前剩余的油量
+    private int p;
+    private int stops;
+    private boolean unreachable;
+    private final IntMaxHeap gas = new IntMaxHeap();
+
+    public MinStopEngine(int length, int p) {
+        this.length = length;
+        this.p = p;
+    }
+
+    /**
+     * 经过一个加油站，distance 是加油站到终点的距离，必须按照由远到近的顺序输入。
+     * 返回到达这个加油站最少的加油次数，到达不了时返回 -1。
+     */
+    public int addStation(int distance, int gas) {
+        if (distance > length) {
+            throw new IllegalArgumentException("distance " + distance + " is behind current position " + length);
+        }
+        if (!driveTo(distance)) {
+            return -1;
+        }
+        this.gas.push(gas);
+        return stops;
+    }
+
+    /**
+     * 开到终点，返回最少加油次数，到达不了时返回 -1
+     */
+    public int finish() {
+        return driveTo(0) ? stops : -1;
+    }
+
+    public int stops() {
+        return unreachable ? -1 : stops;
+    }
+
+    private boolean driveTo(int distance) {
+        if (unreachable) {
+            return false;
+        }
+        int dis = length - distance;
+        while (dis > p && !gas.isEmpty()) {
+            p += gas.pop();
+            stops++;
+        }
+        if (p < dis) {
+            unreachable = true;
+            return false;
+        }
+        p = p - dis;
+        length = distance;
+        return true;
+    }
+
+    /**
+     * int 类型的大顶堆，避免 PriorityQueue<Integer> 的装箱
+     */
+    static class IntMaxHeap {
+        private int[] heap = new int[16];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] >= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int value = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (value >= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
+            return top;
+        }
+    }
+
+    public static void main(String[] args) {
+        MinStopEngine engine = new MinStopEngine(25, 10);
+        int[][] stations = {{15, 10}, {11, 5}, {5, 2}, {4, 4}};
+        for (int[] station : stations) {
+            System.out.println("到达距离终点 " + station[0] + " 的加油站，最少加油 " + engine.addStation(station[0], station[1]) + " 次");
+        }
+        System.out.println("到达终点，最少加油 " + engine.finish() + " 次");
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * 加油站：距离终点的距离和可以加的油量，GetMinStop 和 GreedyBenchmark 共用
+ */
+class Pair {
+    int distance;
+    int gas;
+
+    public Pair(int distance, int gas) {
+        this.distance = distance;
+        this.gas = gas;
+    }
+
+    @Override
+    public String toString() {
+        return "Pair [distance=" + distance + ", gas=" + gas + "]";
+    }
+}
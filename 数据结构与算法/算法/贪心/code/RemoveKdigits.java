@@ -1,3 +1,6 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.*;
 
 public class RemoveKdigits {
@@ -27,9 +30,84 @@ public class RemoveKdigits {
         return sb.toString();
     }
 
+    /**
+     * 用 char 数组作为单调栈，栈本身就是最终的结果，不需要装箱，也不需要再拼接字符串
+     */
+    public String removeKdigits2(CharSequence num, int k) {
+        char[] stack = new char[num.length()];
+        int top = 0;
+        for (int i = 0; i < num.length(); i++) {
+            char c = num.charAt(i);
+            while (top > 0 && k > 0 && stack[top - 1] > c) {
+                top--;
+                k--;
+            }
+            if (!(top == 0 && c == '0')) {
+                stack[top++] = c;
+            }
+        }
+        top -= Math.min(top, k);
+        if (top == 0) {
+            return "0";
+        }
+        return new String(stack, 0, top);
+    }
+
+    private static final int CHUNK = 8192;
+    private static final int MAX_STACK = Integer.MAX_VALUE - 8;
+
+    /**
+     * 流式版本，从 in 中读取数字，结果写入 out。
+     * 每删除一个数字都要消耗一次 k，所以栈中距离栈顶超过 k 的数字不可能再被删除，
+     * 可以直接写出去，这样只需要 O(k) 的内存。
+     */
+    public void removeKdigits(Reader in, int k, Writer out) throws IOException {
+        char[] input = new char[CHUNK];
+        // 栈最多需要 k + CHUNK，k 很大时不能一开始就分配，先从 CHUNK 开始按需扩容
+        char[] stack = new char[CHUNK];
+        int top = 0;
+        boolean written = false;
+        int n;
+        while ((n = in.read(input)) != -1) {
+            for (int i = 0; i < n; i++) {
+                char c = input[i];
+                while (top > 0 && k > 0 && stack[top - 1] > c) {
+                    top--;
+                    k--;
+                }
+                if (!(top == 0 && !written && c == '0')) {
+                    if (top == stack.length) {
+                        int flush = top - k;
+                        if (flush < CHUNK && stack.length < MAX_STACK) {
+                            stack = Arrays.copyOf(stack, (int) Math.min((long) stack.length * 2, MAX_STACK));
+                        } else if (flush > 0) {
+                            // 栈满了，把不会再被删除的部分写出去
+                            out.write(stack, 0, flush);
+                            written = true;
+                            System.arraycopy(stack, flush, stack, 0, k);
+                            top = k;
+                        } else {
+                            throw new OutOfMemoryError("stack exceeds " + MAX_STACK + " chars");
+                        }
+                    }
+                    stack[top++] = c;
+                }
+            }
+        }
+        top -= Math.min(top, k);
+        if (top > 0) {
+            out.write(stack, 0, top);
+            written = true;
+        }
+        if (!written) {
+            out.write('0');
+        }
+    }
+
     public static void main(String[] args) {
         RemoveKdigits r = new RemoveKdigits();
         String res = r.removeKdigits("112", 1);
         System.out.println(res);
+        System.out.println(r.removeKdigits2("1432219", 3));
     }
 }
\ No newline at end of file
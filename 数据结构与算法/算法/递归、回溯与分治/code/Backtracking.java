@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * 并行的回溯框架，搜索树和 Subsets.help 相同：每个结点从 start 开始依次选择下一个元素。
+ *
+ * 深度小于 splitDepth 的结点各自作为一个 RecursiveTask 交给 ForkJoinPool 执行，
+ * 更深的部分在当前线程中递归搜索。搜索时的路径保存在每个工作线程自己的数组里，反复使用，
+ * 不会为每次搜索重新分配。
+ *
+ * 对结点的处理由 Visitor 完成，每个任务使用 factory 创建一个新的 Visitor，所以 Visitor 不需要线程安全，
+ * 各个任务的结果最后用 combiner 按照先序遍历的顺序合并。
+ */
+public class Backtracking<R> {
+
+    public interface Visitor<R> {
+        /**
+         * 选择了 value，路径变长之前调用，用于增量维护状态
+         */
+        default void push(int value) {
+        }
+
+        /**
+         * 撤销选择 value，路径变短之后调用
+         */
+        default void pop(int value) {
+        }
+
+        /**
+         * 访问当前结点，path[0, size) 为已经选择的元素，返回 false 时不再搜索它的子结点
+         */
+        boolean visit(int[] path, int size);
+
+        R result();
+    }
+
+    private final int[] nums;
+    private final Supplier<? extends Visitor<R>> factory;
+    private final BinaryOperator<R> combiner;
+    private final int splitDepth;
+    private final ThreadLocal<int[]> scratch;
+
+    public Backtracking(int[] nums, Supplier<? extends Visitor<R>> factory, BinaryOperator<R> combiner,
+            int splitDepth) {
+        this.nums = nums;
+        this.factory = factory;
+        this.combiner = combiner;
+        this.splitDepth = splitDepth;
+        this.scratch = ThreadLocal.withInitial(() -> new int[nums.length]);
+    }
+
+    public R run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    public R run(ForkJoinPool pool) {
+        return pool.invoke(new SearchTask(new int[0], 0));
+    }
+
+    class SearchTask extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        // 从根到当前结点选择的元素，长度不超过 splitDepth
+        final int[] prefix;
+        final int start;
+
+        SearchTask(int[] prefix, int start) {
+            this.prefix = prefix;
+            this.start = start;
+        }
+
+        @Override
+        protected R compute() {
+            Visitor<R> visitor = factory.get();
+            int[] path = scratch.get();
+            for (int value : prefix) {
+                visitor.push(value);
+            }
+            System.arraycopy(prefix, 0, path, 0, prefix.length);
+            if (prefix.length >= splitDepth) {
+                search(visitor, path, prefix.length, start);
+                return visitor.result();
+            }
+            if (!visitor.visit(path, prefix.length)) {
+                return visitor.result();
+            }
+            List<SearchTask> children = new ArrayList<>(nums.length - start);
+            for (int i = start; i < nums.length; i++) {
+                int[] next = new int[prefix.length + 1];
+                System.arraycopy(prefix, 0, next, 0, prefix.length);
+                next[prefix.length] = nums[i];
+                children.add(new SearchTask(next, i + 1));
+            }
+            R result = visitor.result();
+            for (SearchTask child : invokeAll(children)) {
+                result = combiner.apply(result, child.join());
+            }
+            return result;
+        }
+
+        private void search(Visitor<R> visitor, int[] path, int size, int index) {
+            if (!visitor.visit(path, size)) {
+                return;
+            }
+            for (int i = index; i < nums.length; i++) {
+                path[size] = nums[i];
+                visitor.push(nums[i]);
+                search(visitor, path, size + 1, i + 1);
+                visitor.pop(nums[i]);
+            }
+        }
+    }
+
+    /**
+     * 只统计结点（子集）的个数
+     */
+    public static class CountVisitor implements Visitor<Long> {
+        private long count;
+
+        @Override
+        public boolean visit(int[] path, int size) {
+            count++;
+            return true;
+        }
+
+        @Override
+        public Long result() {
+            return count;
+        }
+    }
+
+    /**
+     * 统计和为 target 的子集个数。用 of 创建时，元素都是非负数才剪枝：和超过 target 就不再往下搜索；
+     * 直接用构造方法创建时不剪枝，元素可以是负数
+     */
+    public static class SubsetSumVisitor implements Visitor<Long> {
+        private final long target;
+        private final boolean prune;
+        private long sum;
+        private long count;
+
+        public SubsetSumVisitor(long target) {
+            this(target, false);
+        }
+
+        private SubsetSumVisitor(long target, boolean prune) {
+            this.target = target;
+            this.prune = prune;
+        }
+
+        /**
+         * 检查一次 nums 中有没有负数，有负数时和会变小，不能剪枝
+         */
+        public static Supplier<SubsetSumVisitor> of(int[] nums, long target) {
+            boolean prune = true;
+            for (int value : nums) {
+                if (value < 0) {
+                    prune = false;
+                    break;
+                }
+            }
+            boolean nonNegative = prune;
+            return () -> new SubsetSumVisitor(target, nonNegative);
+        }
+
+        @Override
+        public void push(int value) {
+            sum += value;
+        }
+
+        @Override
+        public void pop(int value) {
+            sum -= value;
+        }
+
+        @Override
+        public boolean visit(int[] path, int size) {
+            if (sum == target) {
+                count++;
+            }
+            return !prune || sum <= target;
+        }
+
+        @Override
+        public Long result() {
+            return count;
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] nums = new int[24];
+        for (int i = 0; i < nums.length; i++) {
+            nums[i] = i + 1;
+        }
+        System.out.println("子集个数：" + new Backtracking<>(nums, CountVisitor::new, Long::sum, 3).run());
+        System.out.println("和为 50 的子集个数：" + new Backtracking<>(nums, SubsetSumVisitor.of(nums, 50), Long::sum, 3).run());
+        // 有负数时不剪枝，{} 和 {5, -5} 的和都是 0
+        int[] negative = { 5, -5 };
+        System.out.println("和为 0 的子集个数（应为 2）：" + new Backtracking<>(negative, SubsetSumVisitor.of(negative, 0),
+                Long::sum, 0).run());
+    }
+}
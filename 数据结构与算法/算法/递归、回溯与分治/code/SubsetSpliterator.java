@@ -0,0 +1,74 @@
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * 用位掩码表示子集：第 i 位为 1 表示包含 nums[i]，n 个元素的所有子集就是 [0, 2^n) 中的所有整数。
+ *
+ * 遍历时只需要一个计数器，不需要保存已经生成的子集；拆分时把计数器的区间一分为二，
+ * 可以直接用于并行流。grayCode 为 true 时按格雷码的顺序输出，相邻两个子集只差一个元素。
+ */
+public class SubsetSpliterator implements Spliterator.OfLong {
+    private long index;
+    private final long end;
+    private final boolean grayCode;
+
+    public SubsetSpliterator(int n, boolean grayCode) {
+        this(0, checkSize(n), grayCode);
+    }
+
+    private SubsetSpliterator(long index, long end, boolean grayCode) {
+        this.index = index;
+        this.end = end;
+        this.grayCode = grayCode;
+    }
+
+    private static long checkSize(int n) {
+        if (n < 0 || n > 62) {
+            throw new IllegalArgumentException("n must be in [0, 62]: " + n);
+        }
+        return 1L << n;
+    }
+
+    private long mask(long i) {
+        return grayCode ? i ^ (i >>> 1) : i;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (index >= end) {
+            return false;
+        }
+        action.accept(mask(index++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        long i = index;
+        index = end;
+        for (; i < end; i++) {
+            action.accept(mask(i));
+        }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        long mid = (index + end) >>> 1;
+        if (mid <= index) {
+            return null;
+        }
+        SubsetSpliterator prefix = new SubsetSpliterator(index, mid, grayCode);
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
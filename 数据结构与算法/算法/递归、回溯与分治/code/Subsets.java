@@ -1,5 +1,10 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  *
@@ -7,7 +12,42 @@ import java.util.List;
  * @Date 2019-09-18 14:17:15
  */
 public class Subsets {
+    // 深度小于 SPLIT_DEPTH 的结点拆分成并行的任务
+    static final int SPLIT_DEPTH = 3;
+
     public List<List<Integer>> subsets(int[] nums) {
+        return new Backtracking<>(nums, SubsetVisitor::new, (a, b) -> {
+            a.addAll(b);
+            return a;
+        }, SPLIT_DEPTH).run();
+    }
+
+    /**
+     * 基于 Backtracking 的实现，搜索顺序和 help 相同，结果也相同
+     */
+    static class SubsetVisitor implements Backtracking.Visitor<List<List<Integer>>> {
+        private final List<List<Integer>> res = new ArrayList<>();
+
+        @Override
+        public boolean visit(int[] path, int size) {
+            List<Integer> subset = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                subset.add(path[i]);
+            }
+            res.add(subset);
+            return true;
+        }
+
+        @Override
+        public List<List<Integer>> result() {
+            return res;
+        }
+    }
+
+    /**
+     * 单线程的回溯
+     */
+    public List<List<Integer>> subsets2(int[] nums) {
         List<List<Integer>> res = new ArrayList<>();
         help(nums, 0, new ArrayList<>(), res);
         return res;
@@ -18,11 +58,46 @@ public class Subsets {
         for (int i = index; i < nums.length; i++) {
             list.add(nums[i]);
             help(nums, i + 1, list, res);
-            list.remove(Integer.valueOf(nums[i]));
+            // 按下标删除最后一个元素，按值删除在有重复元素时会删错，而且需要 O(n) 的查找
+            list.remove(list.size() - 1);
+        }
+    }
+
+    /**
+     * 惰性地生成所有子集的位掩码，不保存任何子集，可以用于并行流
+     */
+    public LongStream subsetMasks(int n, boolean grayCode, boolean parallel) {
+        return StreamSupport.longStream(new SubsetSpliterator(n, grayCode), parallel);
+    }
+
+    /**
+     * 惰性地生成所有子集，每个子集在被消费时才创建
+     */
+    public Stream<int[]> subsetStream(int[] nums, boolean parallel) {
+        return subsetMasks(nums.length, false, parallel).mapToObj(mask -> toSubset(nums, mask));
+    }
+
+    public Iterator<int[]> subsetIterator(int[] nums) {
+        return subsetStream(nums, false).iterator();
+    }
+
+    public static int[] toSubset(int[] nums, long mask) {
+        int[] subset = new int[Long.bitCount(mask)];
+        int k = 0;
+        for (long m = mask; m != 0; m &= m - 1) {
+            subset[k++] = nums[Long.numberOfTrailingZeros(m)];
         }
+        return subset;
     }
 
     public static void main(String[] args) {
         System.out.println(new Subsets().subsets(new int[]{1,2,3}));
+        new Subsets().subsetStream(new int[]{1, 2, 3}, false).forEach(subset -> System.out.print(Arrays.toString(subset)));
+        System.out.println();
+        // 20 个元素中子集和为偶数的子集个数，并行计算，不保存任何子集
+        int[] nums = new int[20];
+        Arrays.setAll(nums, i -> i + 1);
+        System.out.println(new Subsets().subsetMasks(nums.length, true, true)
+                .filter(mask -> Arrays.stream(toSubset(nums, mask)).sum() % 2 == 0).count());
     }
 }
\ No newline at end of file